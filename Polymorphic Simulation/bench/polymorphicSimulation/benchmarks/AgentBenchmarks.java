@@ -0,0 +1,33 @@
+package polymorphicSimulation.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.environment.Map;
+
+/**
+ * One move of an agent of each species, the agents of the species taking turns.
+ */
+public class AgentBenchmarks extends Scenario {
+    @Param({"Human", "Elf", "Orc", "Goblin"})
+    public String group;
+
+    private Map map;
+    private Agent[] species;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        var simulation = createSimulation();
+        map = simulation.getMap();
+        species = simulation.getAgents().stream().filter(agent -> agent.group.equals(group)).toArray(Agent[]::new);
+    }
+
+    @Benchmark
+    public int move() {
+        Agent agent = species[next++ % species.length];
+        agent.move(map);
+        return agent.getX();
+    }
+}
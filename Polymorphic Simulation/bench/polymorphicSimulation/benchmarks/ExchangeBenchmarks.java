@@ -0,0 +1,49 @@
+package polymorphicSimulation.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.utils.MessageSet;
+
+/**
+ * A Human meeting an agent of otherGroup: Human for a union, Elf for an alliance exchange, Orc for a battle.
+ * Both message sets are restored before every exchange, that copy is part of the measured time.
+ */
+public class ExchangeBenchmarks extends Scenario {
+    @Param({"Human", "Elf", "Orc"})
+    public String otherGroup;
+
+    private Map map;
+    private Agent agent;
+    private Agent other;
+    private MessageSet agentMessages;
+    private MessageSet otherMessages;
+
+    @Setup
+    public void setUp() {
+        Simulation simulation = createSimulation();
+        map = simulation.getMap();
+        for (Agent candidate : simulation.getAgents()) {
+            if (agent == null && candidate.group.equals("Human")) {
+                agent = candidate;
+            } else if (agent != null && other == null && candidate.group.equals(otherGroup)) {
+                other = candidate;
+            }
+        }
+        agent.setLocation(mapSize / 2, mapSize / 2); // Outside every SafeZone, so battles happen
+        other.setLocation(mapSize / 2 + 1, mapSize / 2);
+        agentMessages = new MessageSet(agent.messages);
+        otherMessages = new MessageSet(other.messages);
+    }
+
+    @Benchmark
+    public int exchangeMessages() {
+        agent.messages.copyFrom(agentMessages);
+        other.messages.copyFrom(otherMessages);
+        agent.exchangeMessages(other, map);
+        return agent.messages.size();
+    }
+}
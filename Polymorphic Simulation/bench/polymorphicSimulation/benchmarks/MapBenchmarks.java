@@ -0,0 +1,72 @@
+package polymorphicSimulation.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.environment.MapRenderer;
+import polymorphicSimulation.environment.Point;
+import polymorphicSimulation.utils.SimulationRNG;
+import polymorphicSimulation.utils.XoshiroRNG;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Tile lookups at random points, printMap and the incremental renderer.
+ */
+public class MapBenchmarks extends Scenario {
+    private Map map;
+    private final Point[] points = new Point[1024];
+    private int next = 0;
+    private MapRenderer renderer;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() {
+        map = createSimulation().getMap();
+        SimulationRNG random = new XoshiroRNG(SEED);
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(random.nextInt(mapSize), random.nextInt(mapSize));
+        }
+        renderer = new MapRenderer(map, OutputStream.nullOutputStream(), 0);
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // printMap writes to System.out
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public boolean isInSafeZone() {
+        return map.isInSafeZone(points[next++ & 1023], "Human");
+    }
+
+    @Benchmark
+    public boolean getAgentAt() {
+        return map.getAgentAt(points[next++ & 1023]) != null;
+    }
+
+    @Benchmark
+    public boolean isObstacleAt() {
+        return map.isObstacleAt(points[next++ & 1023]);
+    }
+
+    @Benchmark
+    public void printMap() {
+        map.printMap();
+    }
+
+    @Benchmark
+    public void renderFull() {
+        renderer.reset(); // Draw every tile, like printMap
+        renderer.renderNow();
+    }
+
+    @Benchmark
+    public void renderUnchanged() {
+        renderer.renderNow(); // Only compares the tiles, nothing changed since the last frame
+    }
+}
@@ -0,0 +1,36 @@
+package polymorphicSimulation.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.utils.Direction;
+
+import java.util.List;
+
+/**
+ * Direction back to the SafeZone, straight at the master or along a flow field, see Agent.getSafeZoneDirection.
+ */
+public class NavigationBenchmarks extends Scenario {
+    @Param({"false", "true"})
+    public boolean flowField;
+
+    private Map map;
+    private List<Agent> agents;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        Simulation simulation = createSimulation(flowField);
+        map = simulation.getMap();
+        agents = simulation.getAgents();
+    }
+
+    @Benchmark
+    public int safeZoneDirection() {
+        Direction direction = agents.get(next++ % agents.size()).getSafeZoneDirection(map);
+        return direction == null ? 0 : direction.ordinal();
+    }
+}
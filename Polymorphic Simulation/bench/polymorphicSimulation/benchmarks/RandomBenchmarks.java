@@ -0,0 +1,39 @@
+package polymorphicSimulation.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import polymorphicSimulation.utils.MonteCarloRNG;
+import polymorphicSimulation.utils.XoshiroRNG;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one bounded draw from each random generator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class RandomBenchmarks {
+    private final MonteCarloRNG monteCarlo = new MonteCarloRNG(Scenario.SEED);
+    private final XoshiroRNG xoshiro = new XoshiroRNG(Scenario.SEED);
+
+    @Benchmark
+    public int monteCarloNextInt() {
+        return monteCarlo.nextInt(8);
+    }
+
+    @Benchmark
+    public int xoshiroNextInt() {
+        return xoshiro.nextInt(8);
+    }
+}
@@ -0,0 +1,69 @@
+package polymorphicSimulation.benchmarks;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimulationConfig;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.utils.MessageSet;
+import polymorphicSimulation.utils.RNGFactory;
+import polymorphicSimulation.utils.SimulationRNG;
+import polymorphicSimulation.utils.XoshiroRNG;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters and setup shared by the hot path benchmarks: a seeded game of a square map, with agentsPerGroup
+ * agents per group, each holding messages random message ids.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public abstract class Scenario {
+    static final int EP = 1_000_000; // Large enough that no agent dies while measuring
+    static final long SEED = 42;
+
+    @Param({"32", "256"})
+    public int mapSize;
+
+    @Param({"8", "128"})
+    public int agentsPerGroup;
+
+    @Param({"8", "512"})
+    public int messages;
+
+    Simulation createSimulation() {
+        return createSimulation(false);
+    }
+
+    Simulation createSimulation(boolean flowFieldNavigation) {
+        SimulationConfig config = new SimulationConfig(mapSize, mapSize, agentsPerGroup, EP, Integer.MAX_VALUE, RNGFactory.Kind.XOSHIRO)
+                .withFlowFieldNavigation(flowFieldNavigation);
+        Simulation simulation = new Simulation(new SimulationContext(config, SEED));
+
+        SimulationRNG random = new XoshiroRNG(SEED);
+        int pool = Math.max(1, simulation.getAgents().size() * messages / 2); // About half of the ids are shared
+        for (Agent agent : simulation.getAgents()) {
+            fillMessages(agent.messages, messages, pool, random);
+        }
+        return simulation;
+    }
+
+    private static void fillMessages(MessageSet set, int count, int pool, SimulationRNG random) {
+        set.clear();
+        while (set.size() < Math.min(count, pool)) {
+            set.add(random.nextInt(pool));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package polymorphicSimulation.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import polymorphicSimulation.simulation.ActorScheduler;
+import polymorphicSimulation.simulation.PartitionedStep;
+import polymorphicSimulation.simulation.Scheduler;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimultaneousScheduler;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * One full simulation step, for every way the simulation can step. The parallel modes use the common pool,
+ * the actors one virtual thread per agent.
+ */
+public class StepBenchmarks extends Scenario {
+    @Param({"object", "dataOriented", "partitioned", "randomSequential", "lowestEpFirst", "simultaneous", "actors"})
+    public String mode;
+
+    private Simulation simulation;
+    private ActorScheduler actors = null;
+
+    @Setup
+    public void setUp() {
+        simulation = createSimulation();
+        switch (mode) {
+            case "object" -> {
+            }
+            case "dataOriented" -> simulation.setDataOrientedStep(true);
+            case "partitioned" -> simulation.setPartitionedStep(new PartitionedStep(simulation.getMap(), ForkJoinPool.commonPool()));
+            case "randomSequential" -> simulation.setScheduler(Scheduler.randomSequential());
+            case "lowestEpFirst" -> simulation.setScheduler(Scheduler.lowestEpFirst());
+            case "simultaneous" -> simulation.setScheduler(new SimultaneousScheduler(ForkJoinPool.commonPool()));
+            case "actors" -> simulation.setScheduler(actors = new ActorScheduler());
+            default -> throw new IllegalArgumentException("Unknown step mode " + mode);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (actors != null) {
+            actors.close();
+        }
+    }
+
+    @Benchmark
+    public boolean step() {
+        return simulation.step();
+    }
+}
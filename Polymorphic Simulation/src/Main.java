@@ -1,9 +1,31 @@
 import polymorphicSimulation.agents.*;
 import polymorphicSimulation.environment.Map;
-import polymorphicSimulation.environment.Point;
-import polymorphicSimulation.utils.SingletonMasterFactory;
-import polymorphicSimulation.utils.MonteCarloRNG;
-
+import polymorphicSimulation.environment.MapRenderer;
+import polymorphicSimulation.events.ConsoleEventListener;
+import polymorphicSimulation.events.SimulationEvents;
+import polymorphicSimulation.metrics.SimulationMetrics;
+import polymorphicSimulation.simulation.Checkpoint;
+import polymorphicSimulation.simulation.Checkpointer;
+import polymorphicSimulation.simulation.EnsembleRunner;
+import polymorphicSimulation.simulation.ParameterSweep;
+import polymorphicSimulation.simulation.RunJournal;
+import polymorphicSimulation.simulation.RunRecorder;
+import polymorphicSimulation.simulation.RunReplayer;
+import polymorphicSimulation.simulation.Scheduler;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimulationConfig;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.simulation.SimulationResult;
+import polymorphicSimulation.trajectory.EventReader;
+import polymorphicSimulation.trajectory.InteractionType;
+import polymorphicSimulation.trajectory.TrajectoryReader;
+import polymorphicSimulation.trajectory.TrajectoryWriter;
+import polymorphicSimulation.utils.Leaderboard;
+import polymorphicSimulation.utils.RNGFactory;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 import static polymorphicSimulation.style.ColorInConsole.*;
@@ -15,118 +37,243 @@ public class Main {
     private static final int MAX_AGENTS = 4; // per group
     private static final int INITIAL_EP = 100;
     private static final int MAX_SIMULATION_STEPS = 100;
+    private static final SimulationConfig CONFIG = new SimulationConfig(MAP_WIDTH, MAP_HEIGHT, MAX_AGENTS, INITIAL_EP,
+            MAX_SIMULATION_STEPS, RNGFactory.Kind.XOSHIRO);
     private static final boolean SHOW_INFO = true;
+    private static final int WATCH_FPS = 30;
+    private static final int METRICS_INTERVAL = 10; // Steps between two metrics snapshots
+    private static final Path METRICS_FILE = Path.of("simulation-metrics.json"); // Metrics of the last interactive run
     private static final boolean AUTO_MODE = false; // Global variable to control auto or manual mode
+    private static final Scheduler SCHEDULER = Scheduler.randomSequential(); // Turn order of the interactive run
+
 
+    public static void main(String[] args) throws IOException {
+        if (args.length > 1 && args[0].equals("--record")) { // --record <file> [seed]
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : RNGFactory.newSeed();
+            try (RunRecorder recorder = new RunRecorder(Path.of(args[1]), seed, CONFIG.getRngKind())) {
+                System.out.println(runHeadless(CONFIG, seed, recorder));
+            }
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--replay")) { // --replay <file>
+            try (RunReplayer replayer = new RunReplayer(Path.of(args[1]))) {
+                SimulationConfig config = CONFIG.withRngKind(replayer.getKind());
+                System.out.println(runHeadless(config, replayer.getSeed(), replayer));
+                System.out.println(replayer.isFinished() ? "Replay matched the recording" : "Replay ended before the recording");
+            }
+            return;
+        }
+        if (args.length > 2 && args[0].equals("--checkpoint")) { // --checkpoint <file> <interval> [seed]
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : RNGFactory.newSeed();
+            Simulation simulation = new Simulation(new SimulationContext(CONFIG, seed));
+            Checkpointer checkpointer = new Checkpointer(Path.of(args[1]), Integer.parseInt(args[2]));
+            try (checkpointer) {
+                simulation.addStepObserver(checkpointer);
+                System.out.println(simulation.run());
+            }
+            System.out.println(checkpointer.getWritten() + " checkpoint(s) written to " + checkpointer.getFile()
+                    + ", " + checkpointer.getSuperseded() + " superseded while the disk was busy");
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--trace")) { // --trace <file prefix> [seed]
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : RNGFactory.newSeed();
+            Path trajectoryFile = Path.of(args[1] + ".traj");
+            Path eventFile = Path.of(args[1] + ".events");
+            Simulation simulation = new Simulation(new SimulationContext(CONFIG, seed));
+            try (TrajectoryWriter writer = new TrajectoryWriter(simulation, trajectoryFile, eventFile)) {
+                simulation.addStepObserver(writer);
+                System.out.println(simulation.run());
+            }
+            printTraceSummary(trajectoryFile, eventFile);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--resume")) { // --resume <file>
+            Simulation simulation = Checkpoint.read(Path.of(args[1]));
+            System.out.println("Resuming seed " + simulation.getSeed() + " at step " + simulation.getStep());
+            System.out.println(simulation.run());
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--headless")) { // --headless [runs] [xoshiro|monte_carlo] [threads]
+            int runs = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+            SimulationConfig config = args.length > 2 ? CONFIG.withRngKind(RNGFactory.Kind.valueOf(args[2].toUpperCase())) : CONFIG;
+            EnsembleRunner runner = args.length > 3 ? new EnsembleRunner(config, Integer.parseInt(args[3])) : new EnsembleRunner(config);
+            long start = System.nanoTime();
+            List<SimulationResult> results = runner.run(runs, RNGFactory.newSeed());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (runs == 1) {
+                System.out.println(results.getFirst());
+            }
+            System.out.println(runs + " headless run(s) finished in " + elapsedMs + " ms on " + runner.getParallelism() + " thread(s)");
+            printWinCounts(results);
+            return;
+        }
+        if (args.length > 3 && args[0].equals("--sweep")) { // --sweep <file.csv> <replications> <parameter=v1,v2,...|from:to:step>...
+            ParameterSweep sweep = new ParameterSweep(CONFIG, Integer.parseInt(args[2]));
+            for (int i = 3; i < args.length; i++) {
+                String[] parameter = args[i].split("=", 2);
+                sweep.vary(ParameterSweep.Parameter.valueOf(parameter[0].toUpperCase()), parseValues(parameter[1]));
+            }
+            long seed = RNGFactory.newSeed();
+            long start = System.nanoTime();
+            int points = sweep.run(seed, Path.of(args[1]));
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println(points + " point(s) of sweep seed " + seed + " written to " + args[1] + " in " + elapsedMs + " ms on "
+                    + sweep.getParallelism() + " thread(s)");
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--watch")) { // --watch [width height agents per group [steps [fps]]]
+            SimulationConfig config = args.length > 3 ? new SimulationConfig(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                    Integer.parseInt(args[3]), INITIAL_EP, args.length > 4 ? Integer.parseInt(args[4]) : MAX_SIMULATION_STEPS,
+                    CONFIG.getRngKind()) : CONFIG;
+            int fps = args.length > 5 ? Integer.parseInt(args[5]) : WATCH_FPS;
+            watch(config, RNGFactory.newSeed(), fps);
+            return;
+        }
+
+        // [--seed <seed>] [--metrics]: metrics are counted, published over JMX and written to METRICS_FILE only if asked for
+        boolean withMetrics = args.length > 0 && args[args.length - 1].equals("--metrics");
+        long seed = args.length > 1 && args[0].equals("--seed") ? Long.parseLong(args[1]) : RNGFactory.newSeed();
+        System.out.println("Seed: " + seed); // Run again with --seed to get the same game
 
-    public static void main(String[] args) {
         // 1. Map Setup
         System.out.println(Yellow+"Map Setup Initiated"+Reset);
-        Map map = new Map(MAP_WIDTH, MAP_HEIGHT);
+        SimulationEvents events = new SimulationEvents();
+        events.subscribe(new ConsoleEventListener()); // Log every event to the console
+        SimulationContext context = new SimulationContext(CONFIG, seed, events, null);
+        Map map = new Map(context);
         System.out.println(Green+"Map Setup Done"+Reset);
 
-        // 2. Master Agent Creation and Placement
-        System.out.println(Yellow+"Master Agent Creation and Placement Initiated"+Reset);
-        placeMasters(map);
-        System.out.println(Green+"Master Agent Creation and Placement Done"+Reset);
-
-        // 3. Agent Creation and Placement
-        System.out.println(Yellow+"Agent Creation and Placement Initiated"+Reset);
-        List<Agent> agents = createAgents(map);
+        // 2. Master and Agent Creation and Placement
+        System.out.println(Yellow+"Master and Agent Creation and Placement Initiated"+Reset);
+        Simulation simulation = new Simulation(map);
+        List<Agent> agents = simulation.getAgents();
+        SimulationMetrics metrics = null;
+        if (withMetrics) {
+            metrics = new SimulationMetrics(METRICS_INTERVAL);
+            if (SHOW_INFO) {
+                metrics.setSnapshotListener(snapshot -> System.out.println(Cyan + "Metrics: " + snapshot + Reset));
+            }
+            simulation.setMetrics(metrics);
+            registerMBean(metrics, seed); // Readable with jconsole while the run waits for ENTER
+        }
+        simulation.setScheduler(SCHEDULER);
         map.printMap();
-        System.out.println(Green+"Agent Creation and Placement Done"+Reset);
+        System.out.println(Green+"Master and Agent Creation and Placement Done"+Reset);
 
-        // 4. Simulation Loop
-        System.out.println(Yellow+"Simulation Loop Initiated"+Reset);
-        boolean winnerFound = runSimulation(map, agents); // Store result of runSimulation
-        System.out.println(Green+"Simulation Loop Done"+Reset);
+        try {
+            // 3. Simulation Loop
+            System.out.println(Yellow+"Simulation Loop Initiated"+Reset);
+            SimulationResult result = runSimulation(simulation); // Store result of runSimulation
+            System.out.println(Green+"Simulation Loop Done"+Reset);
 
-        // 5. Determine Winner
-        if (!winnerFound) { // Call only if no winner during simulation
-            determineWinner(map);
-        }
+            // 4. Determine Winner
+            if (!result.isAllMessagesCollected()) { // Call only if no winner during simulation
+                determineWinner(simulation);
+            }
 
-        // 6. Display Final Info
-        if (SHOW_INFO) {
-            printFinalResults(agents);
+            // 5. Display Final Info
+            if (SHOW_INFO) {
+                printFinalResults(agents);
+            }
+        } finally {
+            if (metrics != null) {
+                unregisterMBean(metrics);
+            }
+        }
+        if (metrics != null) {
+            metrics.publish().writeJson(METRICS_FILE);
+            System.out.println("Metrics written to " + METRICS_FILE.toAbsolutePath());
         }
-
     }
 
-    private static List<Agent> createAgents(Map map) {
-        List<Agent> agents = new ArrayList<>();
-        String[] groups = {"Human", "Elf", "Orc", "Goblin"};
-
-        for (String group : groups) {
-            for (int i = 0; i < MAX_AGENTS; i++) {
-                Point location = findValidMonteCarloRNGSpot(map); //Helper method to find open spots
-
-                Agent agent = switch (group) {
-                    case "Human" -> new Human("Human" + i, group, location, INITIAL_EP, "LightSide");
-                    case "Elf" -> new Elf("Elf" + i, group, location, INITIAL_EP, "LightSide");
-                    case "Orc" -> new Orc("Orc" + i, group, location, INITIAL_EP, "DarkSide");
-                    case "Goblin" -> new Goblin("Goblin" + i, group, location, INITIAL_EP, "DarkSide");
-                    default -> throw new IllegalStateException("Unexpected value: " + group);
-                };
-
-                agent.location = location; // Set location after agent creation.
-                map.placeAgent(agent);
-                agents.add(agent);
-            }
+    private static void registerMBean(SimulationMetrics metrics, long seed) {
+        try {
+            metrics.registerMBean(Long.toString(seed));
+        } catch (JMException e) { // The run goes on, its metrics are still written at the end
+            System.out.println(Red + "Metrics not published over JMX: " + e.getMessage() + Reset);
         }
-        return agents;
     }
 
-    private static Point findValidMonteCarloRNGSpot(Map map) {
-        MonteCarloRNG MonteCarloRNG = new MonteCarloRNG();
-        Point location;
-        do {
-            int x = MonteCarloRNG.nextInt(MAP_WIDTH);
-            int y = MonteCarloRNG.nextInt(MAP_HEIGHT);
-            location = new Point(x, y);
-        } while (!map.isTileFree(location) || map.isSafeZone(location));
-
-        return location;
+    private static void unregisterMBean(SimulationMetrics metrics) {
+        try {
+            metrics.unregisterMBean();
+        } catch (JMException e) {
+            System.out.println(Red + "Metrics not removed from JMX: " + e.getMessage() + Reset);
+        }
     }
 
+    /**
+     * Runs a complete simulation without prompts, delays, rendering or event listeners.
+     * Each run has its own SimulationContext, so runs in the same JVM, even concurrent ones, are independent.
+     *
+     * @return the outcome of the run
+     */
+    public static SimulationResult runHeadless() {
+        return runHeadless(CONFIG, RNGFactory.newSeed(), null);
+    }
 
-    private static void placeMasters(Map map) {
-        String[] groups = {"Human", "Elf", "Orc", "Goblin"};
-        String[] alliances = {"LightSide", "LightSide", "DarkSide", "DarkSide"}; // Alliances corresponding to the groups
+    /**
+     * Runs a complete headless simulation whose random streams are all derived from seed.
+     * The same seed gives the same game.
+     *
+     * @param journal receives every random decision and a state checksum per step (step 0 is the setup), may be null
+     * @return the outcome of the run
+     */
+    public static SimulationResult runHeadless(SimulationConfig config, long seed, RunJournal journal) {
+        SimulationContext context = new SimulationContext(config, seed, new SimulationEvents(), journal); // No listener subscribed, so agents publish events for free
+        return new Simulation(context).run();
+    }
 
-        for (int i = 0; i < groups.length; i++) {
-            String group = groups[i];
-            String alliance = alliances[i];
-            Point location = map.getSafeZoneLocation(group);
-            Master master = SingletonMasterFactory.getMasterInstance(group, location, INITIAL_EP, alliance); // Pass alliance
-            map.placeAgent(master);
+    /**
+     * Runs a simulation without prompts or event listeners, drawing the map live at most fps times per second.
+     * Only the tiles that changed since the last frame are drawn, so large maps can be watched too.
+     */
+    private static void watch(SimulationConfig config, long seed, int fps) {
+        Simulation simulation = new Simulation(new SimulationContext(config, seed));
+        MapRenderer renderer = new MapRenderer(simulation.getMap(), System.out, fps);
+        renderer.renderNow();
+        for (int step = 0; step < config.getMaxSteps(); step++) {
+            if (simulation.step()) {
+                break;
+            }
+            renderer.render(); // Skipped while the last frame is too recent
         }
+        renderer.renderNow(); // The final state is always shown
+        System.out.println("Seed: " + seed);
+        System.out.println(simulation.getResult());
     }
 
-    private static boolean runSimulation(Map map, List<Agent> agents) {
+    private static SimulationResult runSimulation(Simulation simulation) {
         Scanner scanner = new Scanner(System.in); // Scanner to capture user input
+        Leaderboard leaderboard = simulation.getLeaderboard();
+        SimulationMetrics metrics = simulation.getMetrics();
 
-        for (int step = 0; step < MAX_SIMULATION_STEPS; step++) {
+        int maxSteps = simulation.getContext().getConfig().getMaxSteps();
+        for (int step = 0; step < maxSteps; step++) {
             System.out.println("Simulation Step: " + (step + 1));
 
             // Print masters' and agents' messages at the start of each step
-            if(SHOW_INFO){
-                printMasterMessages(map);
-                printAgentStatus(agents);
+            long start = startPhase(metrics);
+            if (SHOW_INFO) {
+                printMasterMessages(leaderboard);
+                printAgentStatus(simulation.getAgents());
             }
+            endPhase(metrics, SimulationMetrics.Phase.STATUS_PRINT, start);
 
-            Collections.shuffle(agents); // MonteCarloRNGize agent order
-
-            for (Agent agent : agents) {
-                agent.move(map);
-            }
+            simulation.step(); // Shuffle and move every agent, timed by the simulation
 
-            map.printMap(); // Print map after agent movements
+            start = startPhase(metrics);
+            simulation.getMap().printMap(); // Print map after agent movements
+            endPhase(metrics, SimulationMetrics.Phase.RENDER, start);
 
             // Check for win condition after each step
-            if (checkWinCondition(map)) {
+            start = startPhase(metrics);
+            boolean won = checkWinCondition(simulation);
+            endPhase(metrics, SimulationMetrics.Phase.WIN_CHECK, start);
+            if (won) {
 
-                return true;
+                return simulation.getResult();
             }
             // Handling auto/manual mode
             if (AUTO_MODE) {
@@ -141,24 +288,85 @@ public class Main {
                 scanner.nextLine(); // Wait for user input
             }
         }
-        return false; // No winner found during simulation
+        return simulation.getResult(); // No winner found during simulation
     }
 
-    private static void printMasterMessages(Map map) {
-        String[] groups = {"Human", "Elf", "Orc", "Goblin"};
-        String[] alliances = {"LightSide", "LightSide", "DarkSide", "DarkSide"};
+    private static long startPhase(SimulationMetrics metrics) { // Metrics are null unless asked for with --metrics
+        return metrics == null ? 0 : metrics.startPhase();
+    }
+
+    private static void endPhase(SimulationMetrics metrics, SimulationMetrics.Phase phase, long start) {
+        if (metrics != null) {
+            metrics.endPhase(phase, start);
+        }
+    }
 
-        for (int i = 0; i < groups.length; i++) { //Use index-based loop
-            Master master = SingletonMasterFactory.getMasterInstance(groups[i], map.getSafeZoneLocation(groups[i]), INITIAL_EP, alliances[i]);
-            System.out.println(master.name + " (Master " + groups[i] + ") messages: " + master.getMessages());
+    private static double[] parseValues(String values) { // "50,100,200" or "50:200:50"
+        String[] range = values.split(":");
+        if (range.length == 3) {
+            return ParameterSweep.range(Double.parseDouble(range[0]), Double.parseDouble(range[1]), Double.parseDouble(range[2]));
+        }
+        return Arrays.stream(values.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    private static void printTraceSummary(Path trajectoryFile, Path eventFile) throws IOException {
+        try (TrajectoryReader trajectory = new TrajectoryReader(trajectoryFile); EventReader events = new EventReader(eventFile)) {
+            int[] travelled = new int[trajectory.getAgentCount()];
+            int[] lastX = new int[travelled.length];
+            int[] lastY = new int[travelled.length];
+            for (boolean first = true; trajectory.next(); first = false) {
+                for (int agent = 0; agent < travelled.length; agent++) {
+                    int x = trajectory.getX(agent);
+                    int y = trajectory.getY(agent);
+                    if (!first) {
+                        travelled[agent] += Math.abs(x - lastX[agent]) + Math.abs(y - lastY[agent]);
+                    }
+                    lastX[agent] = x;
+                    lastY[agent] = y;
+                }
+            }
+            java.util.Map<InteractionType, Integer> counts = new EnumMap<>(InteractionType.class);
+            while (events.next()) {
+                counts.merge(events.getType(), 1, Integer::sum);
+            }
+            int farthest = 0;
+            for (int agent = 1; agent < travelled.length; agent++) {
+                if (travelled[agent] > travelled[farthest]) {
+                    farthest = agent;
+                }
+            }
+            System.out.println(trajectory.getBlockCount() + " step blocks in " + trajectoryFile + ", events in " + eventFile + ": " + counts);
+            System.out.println(trajectory.getAgentName(farthest) + " travelled the most: " + travelled[farthest] + " tiles");
+        }
+    }
+
+    private static void printWinCounts(List<SimulationResult> results) {
+        java.util.Map<String, Integer> wins = new LinkedHashMap<>();
+        for (String group : Simulation.GROUPS) {
+            wins.put(group, 0);
+        }
+        int undecided = 0;
+        for (SimulationResult result : results) {
+            if (result.getWinner() != null) {
+                wins.merge(result.getWinner(), 1, Integer::sum);
+            } else {
+                undecided++; // Tie or no message collected
+            }
+        }
+        System.out.println("Wins: " + wins + ", ties or no winner: " + undecided);
+    }
+
+    private static void printMasterMessages(Leaderboard leaderboard) {
+        for (Master master : leaderboard.getMasters()) {
+            System.out.println(master.name + " (Master " + master.group + ") messages: " + master.getMessages());
         }
     }
 
     private static void printAgentStatus(List<Agent> agents) {
         for (Agent agent : agents) {
             if (!(agent instanceof Master)) { // Exclude Masters (already printed)
-                System.out.println(agent.name + " (" + agent.group + ") at (" + agent.location.x + ", "
-                        + agent.location.y + ") EP: " + agent.getEp() + ". Messages: " + agent.getMessages());
+                System.out.println(agent.name + " (" + agent.group + ") at (" + agent.getX() + ", "
+                        + agent.getY() + ") EP: " + agent.getEp() + ". Messages: " + agent.getMessages());
             }
         }
     }
@@ -166,51 +374,32 @@ public class Main {
     private static void printFinalResults(List<Agent> agents){
         for (Agent agent : agents) {
             if(!(agent instanceof Master)) {
-                System.out.println(agent.name + " has " + agent.getMessages().size() + " messages.");
+                System.out.println(agent.name + " has " + agent.getMessageCount() + " messages.");
             }
         }
     }
 
-    private static boolean checkWinCondition(Map map) {
-        String[] groups = {"Human", "Elf", "Orc", "Goblin"};
-        String[] alliances = {"LightSide", "LightSide", "DarkSide", "DarkSide"};
-        int totalMessages = Agent.getTotalMessages();
-
-        for (int i = 0; i < groups.length; i++) { //Use index-based loop
-            Master master = SingletonMasterFactory.getMasterInstance(groups[i], map.getSafeZoneLocation(groups[i]), INITIAL_EP, alliances[i]);
-
-            if (master.getMessages().size() == totalMessages) {
-                System.out.println(Green+"Group " + groups[i] + " wins! (Master collected " +BackgroundBlue+Black+ "all messages - " + master.getMessages().size() + "/" + totalMessages + ")" +Reset);
-                printMasterMessages(map);
-                return true; // End the simulation
-            }
+    private static boolean checkWinCondition(Simulation simulation) {
+        Leaderboard leaderboard = simulation.getLeaderboard();
+        Master winner = leaderboard.getWinner(); // Set the moment a master receives the last message
+        if (winner == null) {
+            return false;
         }
-        return false;
+        int totalMessages = simulation.getContext().getTotalMessages();
+        System.out.println(Green+"Group " + winner.group + " wins! (Master collected " +BackgroundBlue+Black+ "all messages - " + winner.getMessageCount() + "/" + totalMessages + ")" +Reset);
+        printMasterMessages(leaderboard);
+        return true; // End the simulation
     }
 
-    private static void determineWinner(Map map) {
-        String[] groups = {"Human", "Elf", "Orc", "Goblin"};
-        String[] alliances = {"LightSide", "LightSide", "DarkSide", "DarkSide"};
-        List<String> winningGroups = new ArrayList<>(); // List to store potential multiple winners
-        int maxMessages = 0;
-
-        for (int i = 0; i < groups.length; i++) { // Use index-based loop
-            Master master = SingletonMasterFactory.getMasterInstance(groups[i], map.getSafeZoneLocation(groups[i]), INITIAL_EP, alliances[i]);
-            int numMessages = master.getMessages().size();
-
-            if (numMessages > maxMessages) {
-                winningGroups.clear();      // Clear previous winners
-                winningGroups.add(groups[i]);   // Add current group as the sole winner (so far)
-                maxMessages = numMessages; // Update maxMessages
-            } else if (numMessages == maxMessages && numMessages > 0) {
-                winningGroups.add(groups[i]); // Add current group to list of winners (tie)
-            }
-        }
+    private static void determineWinner(Simulation simulation) {
+        Leaderboard leaderboard = simulation.getLeaderboard();
+        List<String> winningGroups = simulation.getWinningGroups(); // List to store potential multiple winners
+        int maxMessages = leaderboard.getLeadingCount();
 
         if (winningGroups.isEmpty()) {
             System.out.println("No winner. No Master collected any messages.");
         } else if (winningGroups.size() == 1) {
-            int totalMessages = Agent.getTotalMessages();
+            int totalMessages = simulation.getContext().getTotalMessages();
             System.out.println(Green+"Group " + winningGroups.getFirst() + " wins! (Collected most messages: " + maxMessages + "/" + totalMessages + ")"+Reset);
         } else {
             System.out.print(Green+"It's a tie! Winning groups: ");
@@ -222,6 +411,6 @@ public class Main {
             }
             System.out.println(" (Collected " + maxMessages + " messages each)"+Reset);
         }
-        printMasterMessages(map);
+        printMasterMessages(leaderboard);
     }
 }
\ No newline at end of file
@@ -1,200 +1,332 @@
 package polymorphicSimulation.agents;
 
+import polymorphicSimulation.environment.FlowField;
 import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.events.BlockReason;
+import polymorphicSimulation.events.SimulationEvents;
 import polymorphicSimulation.environment.Point;
 import polymorphicSimulation.utils.Direction;
-import polymorphicSimulation.utils.SingletonMasterFactory;
-import polymorphicSimulation.utils.MonteCarloRNG;
+import polymorphicSimulation.utils.MessageSet;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.utils.SimulationRNG;
 
 import java.util.*;
 
-import static polymorphicSimulation.style.ColorInConsole.*;
-
+/**
+ * An agent of the simulation. Position, EP, last direction and obstacle flag live in the run's {@link AgentStore},
+ * the agent is a view onto its slot there.
+ */
 public abstract class Agent {
 
     public String name;
     public String group;
-    public Point location;
-    private int ep;
-    private final int initialEp;
     private final String alliance;
-    public List<String> messages;
-    public Direction lastDirection;
-    public boolean lastHitObstacle = false;
-    private static final int MAX_MESSAGES = 5; // Max messages generated per agent
-    private static int totalMessages = 0; // Keep track of total messages
-    protected final MonteCarloRNG MonteCarloRNG = new MonteCarloRNG();
-
-    public Agent(String name, String group, Point location, int ep, String alliance) {
+    public MessageSet messages; // Message ids, see MessageSet for the "M" + id display form
+    protected final AgentStore store; // Holds this agent's position, EP, last direction and obstacle flag
+    protected final int index; // Slot of this agent in store
+    private static final String[] BATTLE_CHOICES = {"stone", "leaf", "scissors"};
+    public static final int MAX_MOVE_DISTANCE = 3; // Tiles an agent may cover in one move, and so the farthest tile a move touches
+    protected final SimulationContext context; // The run this agent belongs to
+    protected final SimulationRNG random; // One stream per agent, used for every random decision
+    protected final Direction[] filteredDirections = new Direction[Direction.values().length]; // Reused every move
+    private final MessageSet exchangeBuffer = new MessageSet(); // Reused by alliance exchanges
+    private final Direction[] moveDirections; // The same array for every agent of a species, null if it never moves
+
+    /**
+     * Takes a slot in the context's {@link AgentStore}. The caller registers the agent there once it is constructed,
+     * see {@link AgentStore#register(Agent)}.
+     *
+     * @param moveDirections the species' directions, the same array for all its agents, or null if it never moves
+     */
+    public Agent(SimulationContext context, String name, String group, Point location, int ep, String alliance, Direction[] moveDirections) {
+        this.context = context;
+        this.random = context.newRandom();
         this.name = name;
         this.group = group;
-        this.location = location;
-        this.ep = ep;
-        this.initialEp = ep;
-        this.messages = new ArrayList<>();
-        this.lastDirection = null;
+        this.moveDirections = moveDirections;
+        this.store = context.getAgentStore();
+        this.index = store.add(location.x, location.y, ep, group, moveDirections);
+        this.messages = new MessageSet();
         this.alliance = alliance;
-        this.generateMessages(); //Generate messages upon Agent creation
+        if (moveDirections != null) { // Masters never move, and only collect the messages of others
+            this.generateMessages(); //Generate messages upon Agent creation
+        }
     }
 
     public abstract void move(Map map); //Polymorphic method for agent movement
 
+    /**
+     * @return the directions this agent moves in, the same array on every call, or null if it never moves
+     */
+    protected final Direction[] getMoveDirections() {
+        return moveDirections;
+    }
+
     public abstract String getColor();  // Abstract method for color
 
-    // Common movement and logging logic
-    protected void commonMoveLogic(Map map, List<Direction> possibleDirections) {
+    // Common movement and logging logic. Uses the first directionCount entries of possibleDirections
+    protected void commonMoveLogic(Map map, Direction[] possibleDirections, int directionCount) {
+        if (planMove(map, possibleDirections, directionCount)) {
+            Direction direction = AgentStore.toDirection(store.plannedDirection[index]);
+            moveInDirection(map, direction, store.plannedDistance[index]);
+            endMove(map, direction);
+        }
+    }
+
+    /**
+     * First half of a simultaneous move: picks its direction and distance, then walks the way on the map as it
+     * is, recording how far it is free and what stops the agent. Changes neither the map nor any other agent,
+     * so every agent can plan against the same map, see SimultaneousScheduler. {@link #commitMove(Map)} then moves.
+     *
+     * @return false if the agent does not move this step
+     */
+    public boolean planMove(Map map) {
+        Direction[] directions = getMoveDirections();
+        if (directions == null) {
+            return false; // Masters don't move
+        }
+        if (!planMove(map, filteredDirections, getFilteredDirections(map, directions))) {
+            return false;
+        }
+        Direction direction = AgentStore.toDirection(store.plannedDirection[index]);
+        int distance = store.plannedDistance[index];
+        int x = getX();
+        int y = getY();
+        int steps = 0;
+        store.plannedMeet[index] = -1;
+        store.plannedBlock[index] = AgentStore.NO_BLOCK;
+        for (; steps < distance; steps++) {
+            x += direction.dx;
+            y += direction.dy;
+            BlockReason block = !withinBounds(x, y, map) ? BlockReason.OUTSIDE_BOUNDS
+                    : TileObstacle(x, y, map) ? BlockReason.OBSTACLE
+                    : map.isInOtherSafeZone(x, y, group) ? BlockReason.OTHER_SAFE_ZONE : null;
+            if (block != null) {
+                store.plannedBlock[index] = (byte) block.ordinal();
+                break;
+            }
+            Agent other = map.getAgentAt(x, y);
+            if (other != null && other != this) {
+                store.plannedMeet[index] = other.index;
+                break;
+            }
+        }
+        store.plannedSteps[index] = (byte) steps;
+        return true;
+    }
+
+    private boolean planMove(Map map, Direction[] possibleDirections, int directionCount) {
+        SimulationEvents events = map.getEvents();
+        store.plannedDirection[index] = AgentStore.NO_DIRECTION;
         if (getEp() <= 0) {
-            System.out.println(getColor()+getDeadMessage()+Reset);
-            return;
+            events.moveBlocked(this, BlockReason.DEAD);
+            return false;
         }
 
-        System.out.println(getColor()+getStartMoveMessage()+Reset);
+        events.moveStarted(this);
 
-        if (possibleDirections.isEmpty()) {
-            System.out.println(name + " cannot move (no possible directions)");
-            return;
+        if (directionCount == 0) {
+            events.moveBlocked(this, BlockReason.NO_DIRECTION);
+            return false;
         }
 
-        Direction direction = possibleDirections.get(MonteCarloRNG.nextInt(possibleDirections.size()));
+        Direction direction = possibleDirections[random.nextInt(directionCount)];
         int maxDistance = getMaxDistance(); // You can vary maxDistance if needed
 
-        System.out.println(name + " planning to move " + maxDistance + " steps " + direction); // debugging
-        moveInDirection(map, direction, maxDistance);
+        events.movePlanned(this, direction, maxDistance);
+        store.plannedDirection[index] = AgentStore.toOrdinal(direction);
+        store.plannedDistance[index] = (byte) maxDistance;
+        return true;
+    }
+
+    /**
+     * Second half of a simultaneous move: moves along the free part of the way found by the last
+     * {@link #planMove(Map)}. A tile taken since by an agent that committed first stops the agent there and they
+     * meet. Otherwise it meets the agent it saw at the end of the way, if that one is still alive and there, or
+     * hits the barrier it saw. Does nothing if that plan was not to move.
+     */
+    public void commitMove(Map map) {
+        Direction direction = AgentStore.toDirection(store.plannedDirection[index]);
+        if (direction == null) {
+            return;
+        }
+        int steps = store.plannedSteps[index];
+        if (moveInDirection(map, direction, steps)) { // Else stopped on the way, or died
+            int meet = store.plannedMeet[index];
+            byte block = store.plannedBlock[index];
+            if (meet >= 0) {
+                Agent other = store.views[meet];
+                // A dead agent's tile is left as it is, and an agent that moved on since is not met: the agent stops before the tile
+                if (other.getEp() > 0 && map.getAgentAt(getX() + direction.dx, getY() + direction.dy) == other) {
+                    handleAgentInteraction(other, map);
+                }
+            } else if (block != AgentStore.NO_BLOCK) {
+                BlockReason reason = BlockReason.values()[block];
+                map.getEvents().moveBlocked(this, reason);
+                if (reason != BlockReason.OUTSIDE_BOUNDS) {
+                    barrierHit(map, direction, store.plannedDistance[index] - steps);
+                }
+            }
+        }
+        endMove(map, direction);
+    }
+
+    /**
+     * Same as {@link #commitMove(Map)}, but the interactions of the move are handed to deferred rather than
+     * carried out, see ActorScheduler. Masters met are still announced right away.
+     */
+    public void commitMove(Map map, DeferredInteractions deferred) {
+        store.deferred = deferred;
+        try {
+            commitMove(map);
+        } finally {
+            store.deferred = null;
+        }
+    }
 
-        lastDirection = direction;
-        System.out.println(Red+getEndMoveMessage()+Reset);
+    private void endMove(Map map, Direction direction) {
+        store.plannedDirection[index] = AgentStore.NO_DIRECTION;
+        store.lastDirection[index] = AgentStore.toOrdinal(direction);
+        map.getEvents().moveEnded(this);
     }
 
-    // Common logic for filtered directions
-    protected List<Direction> getFilteredDirections(Map map, List<Direction> allDirections) {
-        List<Direction> filteredDirections = new ArrayList<>(allDirections);
+    // Common logic for filtered directions. Fills filteredDirections and returns how many entries are valid
+    protected int getFilteredDirections(Map map, Direction[] allDirections) {
+        Direction excluded = isLastHitObstacle() ? getLastDirection() : null; // Remove last direction if agent last hit an obstacle.
+        store.lastHitObstacle[index] = false;
 
-        if (lastHitObstacle) {
-            filteredDirections.remove(lastDirection); // Remove last direction if agent last hit an obstacle.
-            lastHitObstacle = false;
+        int count = 0;
+        for (Direction direction : allDirections) {
+            if (direction != excluded) {
+                filteredDirections[count++] = direction;
+            }
         }
 
         if (getEp() != 0 && getEp() * 1.0 / getInitialEp() <= 0.2) {
             Direction toSafeZone = getSafeZoneDirection(map);
-            System.out.println(getColor()+getName() + " EP <= 0.2 - SafeZone direction: " + toSafeZone+Reset);
+            map.getEvents().safeZoneHeading(this, toSafeZone);
             if (toSafeZone != null) {
-                filteredDirections.clear(); // Prioritize direction to SafeZone
-                filteredDirections.add(toSafeZone);
+                filteredDirections[0] = toSafeZone; // Prioritize direction to SafeZone
+                count = 1;
             }
         }
-        return filteredDirections;
-    }
-
-    // Helper methods to generate common messages
-    private String getDeadMessage() {
-        return name + " is Dead";
-    }
-
-    private String getStartMoveMessage() {
-        return name + " starting move at (" + location.x + ", " + location.y + ") with EP: "
-                + getEp() + ". Messages: " + getMessages().size();
-    }
-
-    private String getEndMoveMessage() {
-        return name + " ending move at (" + location.x + ", " + location.y + ") with EP: "
-                + getEp() + ". Messages: " + getMessages().size();
+        return count;
     }
 
     private int getMaxDistance() {
-        return MonteCarloRNG.nextInt(3) + 1; // Default distance 1-3, can be adjusted
+        return random.nextInt(MAX_MOVE_DISTANCE) + 1; // Default distance 1-3, can be adjusted
     }
 
-    protected boolean withinBounds(Point newLocation, Map map) {
-        return map.isTileWithinBounds(newLocation);
+    protected boolean withinBounds(int x, int y, Map map) {
+        return map.isTileWithinBounds(x, y);
     }
 
-    protected boolean TileObstacle(Point newLocation, Map map) {
-        return map.isObstacleAt(newLocation);
+    protected boolean TileObstacle(int x, int y, Map map) {
+        return map.isObstacleAt(x, y);
     }
 
-    protected void updateLocation(Point newLocation, Map map) {
-        map.removeAgent(this.location);
-        location = newLocation;
+    protected void updateLocation(int x, int y, Map map) {
+        map.removeAgent(getX(), getY());
+        setLocation(x, y);
         map.placeAgent(this);
     }
 
     public void exchangeMessages(Agent other, Map map) {
-        if (this.group.equals(other.group)) { // Same group - Union of messages
-            unionMessages(other);
+        meet(this, this.messages, other, other.messages, map);
+    }
+
+    /**
+     * The meeting rules, for first meeting second: union in a group, alliance exchange between allies and battle
+     * outside both SafeZones otherwise. Changes only the two message sets given, which may be copies of the
+     * agents' own, and draws from this agent's random stream.
+     */
+    private void meet(Agent first, MessageSet firstMessages, Agent second, MessageSet secondMessages, Map map) {
+        SimulationEvents events = map.getEvents();
+        if (first.group.equals(second.group)) { // Same group - Union of messages
+            unionMessages(first, firstMessages, second, secondMessages, events);
 
-        } else if (this.getAlliance().equals(other.getAlliance())) { // Different group, same alliance - alliance exchange
-            exchangeAllianceMessages(other);
+        } else if (first.getAlliance().equals(second.getAlliance())) { // Different group, same alliance - alliance exchange
+            exchangeAllianceMessages(first, firstMessages, second, secondMessages, events);
 
-        } else if (!map.isInSafeZone(this.location, this.group) && !map.isInSafeZone(other.location, other.group)) {
+        } else if (!map.isInSafeZone(first.getX(), first.getY(), first.group) && !map.isInSafeZone(second.getX(), second.getY(), second.group)) {
             // Different group, different alliance, not in safe zone - Battle
-            System.out.println(Cyan + this.name + " (" + this.group + ") of " + this.getMessages().size() + " messages, battled " + other.name + " (" + other.group + ") of " + other.getMessages().size() + " messages." + Reset);
-            battle(other);
-            System.out.println(Cyan + "Result of the battle: " + this.name + " has " + this.messages.size() + ", " + other.name + " has " + other.messages.size() + " messages" + Reset);
+            battle(first, firstMessages, second, secondMessages, events);
         }
     }
 
-    private void unionMessages(Agent other) {
-        Set<String> combinedMessages = new HashSet<>(this.messages); // Use a Set to automatically handle duplicates
-        combinedMessages.addAll(other.messages);      // Add all of the other agent's messages (more efficient this way)
+    private void unionMessages(Agent first, MessageSet firstMessages, Agent second, MessageSet secondMessages, SimulationEvents events) {
+        int firstMessagesBefore = firstMessages.size();
+        int secondMessagesBefore = secondMessages.size();
 
-        System.out.print(Cyan + this.name + " (" + this.group + ") met his fellow " + other.name + " and unioned messages." + Reset);
-        System.out.print(Cyan + " Before union: " + this.name + ": " + this.messages.size() + " messages, " + other.name + ": " + other.messages.size() + " messages" + Reset);
-
-        this.messages = new ArrayList<>(combinedMessages);  // Update my messages
-        other.messages = new ArrayList<>(combinedMessages); // Update the other agent's messages
-
-        System.out.println(Cyan + ", After union: Both have " + this.messages.size() + " messages" + Reset);
+        firstMessages.addAll(secondMessages);  // Update first's messages with the union
+        secondMessages.copyFrom(firstMessages); // Update the second agent's messages
 
+        events.union(first, second, firstMessagesBefore, secondMessagesBefore);
     }
 
-    private void exchangeAllianceMessages(Agent other) { //New method
-        System.out.println(Cyan + this.name + " (" + this.group + ") met " + other.name + " from allied group (" + other.getGroup() + ") and exchanged messages." + Reset);
-
-        int numMessagesToExchange = MonteCarloRNG.nextInt(3) + 1;  // Exchange 1-3 messages
+    private void exchangeAllianceMessages(Agent first, MessageSet firstMessages, Agent second, MessageSet secondMessages,
+                                          SimulationEvents events) { //New method
+        int numMessagesToExchange = random.nextInt(3) + 1;  // Exchange 1-3 messages
+        int firstMessagesBefore = firstMessages.size();
+        int secondMessagesBefore = secondMessages.size();
 
-        System.out.print(Cyan + "Before exchange: " + this.name + " has " + this.messages.size() + ", " + other.name + " has " + other.messages.size() + ". " + Reset);
+        // Only messages the recipient does not have yet can be exchanged. The messages second gets from first
+        // are ones first has, so second's unique messages are the same before and after the first transfer.
+        MessageSet unique = exchangeBuffer;
+        unique.setDifference(firstMessages, secondMessages);
+        transferUniqueMessages(unique, secondMessages, numMessagesToExchange);
+        unique.setDifference(secondMessages, firstMessages);
+        transferUniqueMessages(unique, firstMessages, numMessagesToExchange);
 
-        List<String> myMessagesCopy = new ArrayList<>(this.messages); // Make copies of messages to avoid ConcurrentModificationException
-        List<String> otherMessagesCopy = new ArrayList<>(other.messages);
-
-        // Exchange unique messages between the 2 agents.
-        transferUniqueMessages(myMessagesCopy, other, numMessagesToExchange);
-        transferUniqueMessages(otherMessagesCopy, this, numMessagesToExchange);
+        events.allianceExchange(first, second, numMessagesToExchange, firstMessagesBefore, secondMessagesBefore);
+    }
 
-        System.out.println(Cyan + "After exchange: " + this.name + " has " + this.messages.size() + ", " + other.name + " has " + other.messages.size() + Reset);
+    private void transferUniqueMessages(MessageSet uniqueMessages, MessageSet recipient, int numMessages) { // uniqueMessages is consumed
+        for (int i = 0; i < numMessages && !uniqueMessages.isEmpty(); i++) {
+            int message = uniqueMessages.get(random.nextInt(uniqueMessages.size()));
+            uniqueMessages.remove(message);
+            recipient.add(message);
+        }
     }
 
-    private void transferUniqueMessages(List<String> sourceMessages, Agent recipient, int numMessages) {
-        MonteCarloRNG MonteCarloRNG = new MonteCarloRNG();
+    private void battle(Agent first, MessageSet firstMessages, Agent second, MessageSet secondMessages, SimulationEvents events) {
+        String firstChoice = BATTLE_CHOICES[random.nextInt(3)];
+        String secondChoice = BATTLE_CHOICES[random.nextInt(3)];
+        int firstMessagesBefore = firstMessages.size();
+        int secondMessagesBefore = secondMessages.size();
 
-        for (int i = 0; i < numMessages && !sourceMessages.isEmpty(); i++) {
-            String message = sourceMessages.remove(MonteCarloRNG.nextInt(sourceMessages.size()));
+        int result = compareChoices(firstChoice, secondChoice);
 
-            if (!recipient.messages.contains(message)) {
-                recipient.messages.add(message);
-            } else {
-                i--; //If the recipient already had that message, then try transferring another message
-            }
+        if (result == 1) { // first won
+            transferMessages(second, secondMessages, first, firstMessages, events);
+        } else if (result == -1) { // first lost
+            transferMessages(first, firstMessages, second, secondMessages, events);
         }
+        events.battle(first, second, firstChoice, secondChoice, result, firstMessagesBefore, secondMessagesBefore);
     }
 
-    private void battle(Agent other) {
-        String[] options = {"stone", "leaf", "scissors"};
-        MonteCarloRNG MonteCarloRNG = new MonteCarloRNG();
-        String myChoice = options[MonteCarloRNG.nextInt(3)];
-        String otherChoice = options[MonteCarloRNG.nextInt(3)];
-
-        System.out.print(Cyan + this.getName() + " chose " + myChoice + ", " + other.getName() + " chose: " + otherChoice + " ||| " + Reset);
-
-        int result = compareChoices(myChoice, otherChoice);
+    /**
+     * This agent's side of a meeting started by initiator, when each agent is an actor, see ActorScheduler: the
+     * rules of {@link #exchangeMessages} played on a copy of the initiator's messages, drawn from this agent's
+     * random stream and changing only this agent's messages. What the initiator gains and loses is written to
+     * gained and lost, see {@link #applyAnswer}.
+     *
+     * @param offered the initiator's messages when it sent them
+     */
+    public void answerMeeting(Agent initiator, MessageSet offered, Map map, MessageSet gained, MessageSet lost) {
+        MessageSet initiatorMessages = gained; // The initiator's messages after the meeting, until the difference
+        initiatorMessages.copyFrom(offered);
+        meet(initiator, initiatorMessages, this, messages, map);
+        lost.setDifference(offered, initiatorMessages);
+        gained.setDifference(initiatorMessages, offered);
+    }
 
-        if (result == 1) { // won
-            transferMessages(other, this);
-        } else if (result == -1) { // lost
-            transferMessages(this, other);
-        } else {
-            System.out.print(Cyan + "Tie, no message transfer. " + Reset);
-        }
+    /**
+     * Initiator's side of a meeting answered by {@link #answerMeeting}.
+     */
+    public void applyAnswer(MessageSet gained, MessageSet lost) {
+        messages.addAll(gained);
+        messages.setDifference(messages, lost);
     }
 
     private int compareChoices(String choice1, String choice2) {
@@ -209,59 +341,52 @@ public abstract class Agent {
         }
     }
 
-    private void transferMessages(Agent loser, Agent winner) { // Removed numMessages parameter
-        System.out.println(Cyan + "Winner: " + winner.getName() + ", loser: " + loser.getName() + Reset);
-
-        if(loser.messages.isEmpty()){ // ensure loser has at least 1 message
-            System.out.println(Cyan+"Loser " + loser.getName() + " has no messages to transfer"+Reset);
+    private void transferMessages(Agent loser, MessageSet loserMessages, Agent winner, MessageSet winnerMessages,
+                                  SimulationEvents events) { // Removed numMessages parameter
+        if(loserMessages.isEmpty()){ // ensure loser has at least 1 message
+            events.messagesTaken(winner, loser, 0, 0, 0);
             return;
         }
-        MonteCarloRNG MonteCarloRNG = new MonteCarloRNG();
-        int numMessagesToTransfer = MonteCarloRNG.nextInt(loser.messages.size()) + 1 ;;
-
-        int uniqueMessagesTransferred = 0;
-
-        System.out.print(Cyan+"Winner will take " + numMessagesToTransfer + " messages out of " + loser.messages.size()+Reset);  // debugging
+        int numMessagesToTransfer = random.nextInt(loserMessages.size()) + 1 ;;
 
         // Transfer unique messages first
-        Iterator<String> iterator = loser.messages.iterator(); //Use iterator to avoid ConcurrentModificationException
-        while (iterator.hasNext() && uniqueMessagesTransferred < numMessagesToTransfer) {
-            String message = iterator.next();
-            if (!winner.messages.contains(message)) {
-                winner.messages.add(message);
-                iterator.remove(); //Safe removal of the message using the iterator
-                uniqueMessagesTransferred++;
-            }
-        }
-
-        System.out.println(Cyan+" ||| Unique messages taken: " + uniqueMessagesTransferred+Reset); // debugging
+        int uniqueMessagesTransferred = winnerMessages.takeMissingFrom(loserMessages, numMessagesToTransfer);
 
         // If not enough unique messages were transferred, remove remaining from loser
         int remainingMessagesToTransfer = numMessagesToTransfer - uniqueMessagesTransferred;
+        int destroyed = 0;
         if (remainingMessagesToTransfer > 0) {
-            removeMonteCarloRNGMessages(loser, remainingMessagesToTransfer);
+            destroyed = removeMonteCarloRNGMessages(loserMessages, remainingMessagesToTransfer);
         }
+        events.messagesTaken(winner, loser, numMessagesToTransfer, uniqueMessagesTransferred, destroyed);
     }
 
-    private void removeMonteCarloRNGMessages(Agent loser, int numToRemove) {
-        MonteCarloRNG MonteCarloRNG = new MonteCarloRNG();
-
-        System.out.println(Cyan+"Messages left to remove: " + numToRemove+Reset);
-
-        for (int i = 0; i < numToRemove && !loser.messages.isEmpty(); i++) {
-            loser.messages.remove(MonteCarloRNG.nextInt(loser.messages.size()));
+    private int removeMonteCarloRNGMessages(MessageSet loserMessages, int numToRemove) { // returns the number of messages removed
+        int removed = 0;
+        for (int i = 0; i < numToRemove && !loserMessages.isEmpty(); i++) {
+            loserMessages.remove(loserMessages.get(random.nextInt(loserMessages.size())));
+            removed++;
         }
+        return removed;
     }
 
     public Direction getSafeZoneDirection(Map map) {
+        FlowField flowField = map.getFlowField(this.group, getMoveDirections());
+        if (flowField != null) {
+            return flowField.getDirection(getX(), getY()); // Shortest way around the obstacles
+        }
         Point safeZone = map.getSafeZoneLocation(this.group);
         if (safeZone == null) {
             return null; // Or throw an exception, or return a default direction.
         }
 
-        int dx = safeZone.x - this.location.x;
-        int dy = safeZone.y - this.location.y;
+        return directionTowards(safeZone.x - getX(), safeZone.y - getY());
+    }
 
+    /**
+     * @return the direction that best reduces the offset (dx, dy), or null if both are 0
+     */
+    static Direction directionTowards(int dx, int dy) {
         if (dx == 0 && dy == 0) {
             return null; // Already in the SafeZone
         }
@@ -287,96 +412,80 @@ public abstract class Agent {
         }
     }
 
-    protected void generateMessages() {
-        int numMessages = MonteCarloRNG.nextInt(MAX_MESSAGES) + 1; // Generates 1 to MAX_MESSAGES
+    private void generateMessages() {
+        int numMessages = random.nextInt(context.getConfig().getMaxMessages()) + 1; // Generates 1 to the config's max messages
 
         for (int i = 0; i < numMessages; i++) {
-            String newMessage = "M" + totalMessages++;
-            if (!messages.contains(newMessage)) {
-                messages.add(newMessage);
-            }
+            messages.add(context.nextMessageId());
         }
     }
 
     public void transferMessagesToMaster(Map map) {
         if (this instanceof Master) return; // Masters don't transfer messages to themselves
 
-        Master master = SingletonMasterFactory.getMasterInstance(group, map.getSafeZoneLocation(group), initialEp, this.alliance);
-
-        if (map.isInSafeZone(location, group)) {
-            int numOfMessages = master.getMessages().size();
-            for (String message : getMessages()) {
-                master.receiveMessage(message);
+        if (map.isInSafeZone(getX(), getY(), group)) {
+            Master master = context.getMasterInstance(group, map.getSafeZoneLocation(group), getInitialEp(), this.alliance);
+            if (store.deferred != null) {
+                store.deferred.reachSafeZone(this, master);
+                return;
             }
-            System.out.println("Transferred to master. Before " + master.getName() + " had " + numOfMessages + " messages. After: " + master.getMessages().size() + " messages"); // debugging
+            int numOfMessages = master.messages.size();
+            master.receiveMessages(messages);
+            map.getEvents().masterTransfer(this, master, numOfMessages);
         }
     }
 
-    protected void moveInDirection(Map map, Direction direction, int maxDistance) {
-        Point currentLocation = new Point(location.x, location.y);
-        Point newLocation = null;
+    // Returns true if the agent took all maxDistance steps, false if something stopped it or it died
+    protected boolean moveInDirection(Map map, Direction direction, int maxDistance) {
+        int currentX = getX();
+        int currentY = getY();
         for (int i = 0; i < maxDistance; i++) {
             int stepsLeft = maxDistance - i;
-            newLocation = calculateNextLocation(currentLocation, direction);
+            int newX = currentX + direction.dx;
+            int newY = currentY + direction.dy;
 
-            if (!withinBounds(newLocation, map)) {
-                System.out.println("No Move - Outside Bounds");
-                break;
+            if (!withinBounds(newX, newY, map)) {
+                map.getEvents().moveBlocked(this, BlockReason.OUTSIDE_BOUNDS);
+                return false;
             }
-            if (TileObstacle(newLocation, map)) {
-                System.out.println("No Move - Hit Obstacle");
+            if (TileObstacle(newX, newY, map)) {
+                map.getEvents().moveBlocked(this, BlockReason.OBSTACLE);
                 barrierHit(map, direction, stepsLeft);
-                break; //Stop if blocked
+                return false; //Stop if blocked
             }
-            if (map.isInOtherSafeZone(newLocation, group)) {
-                System.out.println("No Move - Hit Other's SafeZone");
+            if (map.isInOtherSafeZone(newX, newY, group)) {
+                map.getEvents().moveBlocked(this, BlockReason.OTHER_SAFE_ZONE);
                 barrierHit(map, direction, stepsLeft);
-                break; //Stop if blocked
+                return false; //Stop if blocked
             }
-            Agent otherAgent = map.getAgentAt(newLocation);  // Check if another agent is present at the target location
+            Agent otherAgent = map.getAgentAt(newX, newY);  // Check if another agent is present at the target location
             if (otherAgent != null && otherAgent != this) {
                 handleAgentInteraction(otherAgent, map);
-                break; // Stop further movement after interaction
+                return false; // Stop further movement after interaction
             } else {
-                updateLocation(newLocation, map); // updating location before updating EP
-                if(updateEp(map, currentLocation)){// updateEp and check death (true for death)
-                    break;
+                updateLocation(newX, newY, map); // updating location before updating EP
+                if(updateEp(map, currentX, currentY)){// updateEp and check death (true for death)
+                    return false;
                 }
-                currentLocation = newLocation;
+                currentX = newX;
+                currentY = newY;
                 transferMessagesToMaster(map);
             }
         }
+        return true;
     }
 
-    private Point calculateNextLocation(Point current, Direction direction) {
-        int dx = 0, dy = 0;
-
-        switch (direction) {
-            case NORTH: dy = 1; break;
-            case SOUTH: dy = -1; break;
-            case EAST: dx = 1; break;
-            case WEST: dx = -1; break;
-            case NORTHEAST: dx = 1; dy = 1; break;
-            case NORTHWEST: dx = -1; dy = 1; break;
-            case SOUTHEAST: dx = 1; dy = -1; break;
-            case SOUTHWEST: dx = -1; dy = -1; break;
-        }
-        return new Point(current.x + dx, current.y + dy);
-    }
-
-    protected boolean updateEp(Map map, Point oldLocation) { //return true if agent dead
-        if (map.isInSafeZone(location, group)) {
-            System.out.print("EP fully restored from " + Red + getEp() + Reset);
+    protected boolean updateEp(Map map, int oldX, int oldY) { //return true if agent dead
+        int epBefore = getEp();
+        if (map.isInSafeZone(getX(), getY(), group)) {
             setEp(getInitialEp());
-            System.out.println(" to " + Green + getEp() + Reset + " Safe Zone");
+            map.getEvents().epUpdated(this, epBefore, 0, true);
         } else {
-            System.out.print("EP before setEp: " + getEp());
-            System.out.print(" ||| manhattanDistance " + manhattanDistance(location, oldLocation));
-            setEp(Math.max(0, getEp() - manhattanDistance(location, oldLocation))); // Ensure ep doesn't go below 0
-            System.out.println(" ||| EP after: " + getEp());
+            int distance = Math.abs(getX() - oldX) + Math.abs(getY() - oldY); // manhattan distance
+            setEp(Math.max(0, getEp() - distance)); // Ensure ep doesn't go below 0
+            map.getEvents().epUpdated(this, epBefore, distance, false);
 
             if (getEp() <= 0 && !(this instanceof Master)) { //Check if agent is dead after movement
-                System.out.println(getName() + " becomeObstacle()");
                 becomeObstacle(map);
                 return true;
             }
@@ -389,28 +498,30 @@ public abstract class Agent {
             case NORTH, SOUTH, EAST, WEST -> stepsLeft;
             case NORTHEAST, NORTHWEST, SOUTHEAST, SOUTHWEST -> 2 * stepsLeft;
         };
-        lastHitObstacle = true;
-        System.out.print("EP before hitting barrier = " + getEp());
+        store.lastHitObstacle[index] = true;
+        int epBefore = getEp();
         setEp(Math.max(0, getEp() - epLost));
-        System.out.println(" --> Lost " + epLost + " --> current EP = " + getEp());
+        map.getEvents().barrierHit(this, direction, epBefore, epLost);
 
         // TODO: this is repeated with updateEp, try to combine later
         if (getEp() <= 0 && !(this instanceof Master)) { //Check if agent is dead after movement
-            System.out.println(getName() + " becomeObstacle()");
             becomeObstacle(map);
         }
     }
 
-    private void becomeObstacle(Map map) {
-        map.addDeadAgent(this.location, this.group);
-        map.addObstacle(this.location);
-        map.removeAgent(this.location);
+    void becomeObstacle(Map map) {
+        map.getEvents().death(this);
+        map.addDeadAgent(getX(), getY(), this.group);
+        map.addObstacle(getX(), getY());
+        map.removeAgent(getX(), getY());
     }
 
-    private void handleAgentInteraction(Agent otherAgent, Map map) {
-        if (otherAgent instanceof Master) { //Check if other agent is Master before interaction. If so, only transfer messages
-            System.out.println(BrightBlack+BackgroundBrightCyan+getName() + " had the honor of having a cup of tea with his master!"+Reset);
+    void handleAgentInteraction(Agent otherAgent, Map map) {
+        if (otherAgent instanceof Master master) { //Check if other agent is Master before interaction. If so, only transfer messages
+            map.getEvents().masterMet(this, master);
             transferMessagesToMaster(map); // useful if there's no safe zone around the master
+        } else if (store.deferred != null) {
+            store.deferred.meet(this, otherAgent);
         } else {
             exchangeMessages(otherAgent, map);
         }
@@ -420,8 +531,46 @@ public abstract class Agent {
         return name;
     }
 
+    /**
+     * @return this agent's slot in the run's AgentStore
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public int getX() {
+        return store.x[index];
+    }
+
+    public int getY() {
+        return store.y[index];
+    }
+
+    /**
+     * @return a copy of the agent's position
+     */
+    public Point getLocation() {
+        return new Point(getX(), getY());
+    }
+
+    /**
+     * Sets the agent's position without updating the map, see updateLocation.
+     */
+    public void setLocation(int x, int y) {
+        store.x[index] = x;
+        store.y[index] = y;
+    }
+
+    public Direction getLastDirection() {
+        return AgentStore.toDirection(store.lastDirection[index]);
+    }
+
+    public boolean isLastHitObstacle() {
+        return store.lastHitObstacle[index];
+    }
+
     public int getEp() {
-        return ep;
+        return store.ep[index];
     }
 
     public String getGroup() {
@@ -429,11 +578,11 @@ public abstract class Agent {
     }
 
     public void setEp(int ep) {
-        this.ep = ep;
+        store.ep[index] = ep;
     }
 
     public int getInitialEp() {
-        return initialEp;
+        return store.initialEp[index];
     }
 
     public String getAlliance() {
@@ -441,11 +590,11 @@ public abstract class Agent {
     }
 
     public List<String> getMessages() {
-        return new ArrayList<>(messages); // Return copy
+        return messages.toStrings(); // Return copy in display form
     }
 
-    public static int getTotalMessages() {
-        return totalMessages;
+    public int getMessageCount() {
+        return messages.size();
     }
 
     @Override
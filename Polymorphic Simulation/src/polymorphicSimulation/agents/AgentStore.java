@@ -0,0 +1,214 @@
+package polymorphicSimulation.agents;
+
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.utils.Direction;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Struct of arrays holding the state the movement loop reads and writes for every agent of a run:
+ * position, EP, initial EP, group id, last direction, obstacle flag and the set of directions it moves in.
+ * <p>
+ * Each {@link Agent} is a view onto one slot of the store, so the polymorphic API keeps working while
+ * {@link MovementKernel} walks the primitive arrays directly instead of chasing one object per agent.
+ * Slots are handed out in creation order and never reused.
+ */
+public class AgentStore {
+    static final byte NO_DIRECTION = -1;
+    static final byte NO_BLOCK = -1;
+    static final byte STATIONARY = -1; // Direction set of agents that never move, like masters
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    int size = 0;
+    int[] x = new int[16];
+    int[] y = new int[16];
+    int[] ep = new int[16];
+    int[] initialEp = new int[16];
+    byte[] groupId = new byte[16];
+    byte[] lastDirection = new byte[16]; // Direction ordinal, or NO_DIRECTION
+    boolean[] lastHitObstacle = new boolean[16];
+    byte[] directionSet = new byte[16]; // Index in directionSets, or STATIONARY
+    byte[] plannedDirection = new byte[16]; // Direction ordinal of the move planned this step, or NO_DIRECTION, see Agent.planMove
+    byte[] plannedDistance = new byte[16];
+    byte[] plannedSteps = new byte[16]; // Free tiles on the way when the plan was made
+    int[] plannedMeet = new int[16];    // Slot of the agent at the end of the way, or -1
+    byte[] plannedBlock = new byte[16]; // BlockReason ordinal of the barrier at the end of the way, or NO_BLOCK
+    Agent[] views = new Agent[16];
+    DeferredInteractions deferred = null; // Set while a move hands its interactions over, see Agent.commitMove
+
+    private final List<String> groupNames = new ArrayList<>(); // Group id -> group name
+    private final java.util.Map<String, Integer> groupIds = new HashMap<>();
+    final List<Direction[]> directionSets = new ArrayList<>(); // Distinct direction arrays, compared by identity
+
+    /**
+     * Adds the state of an agent under construction and returns its slot, see {@link #register(Agent)}.
+     *
+     * @param directions the directions the agent moves in, the same array for every agent of a species, or null if it never moves
+     */
+    int add(int x, int y, int ep, String group, Direction[] directions) {
+        if (size == views.length) {
+            grow(size * 2);
+        }
+        int index = size++;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.ep[index] = ep;
+        this.initialEp[index] = ep;
+        this.groupId[index] = (byte) getGroupId(group);
+        this.lastDirection[index] = NO_DIRECTION;
+        this.plannedDirection[index] = NO_DIRECTION;
+        this.directionSet[index] = directions == null ? STATIONARY : (byte) getDirectionSet(directions);
+        return index;
+    }
+
+    /**
+     * Makes a fully constructed agent the view of its slot. Every agent must be registered before the run steps.
+     */
+    public void register(Agent agent) {
+        views[agent.index] = agent;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Agent getView(int index) {
+        return views[index];
+    }
+
+    public String getGroupName(int groupId) {
+        return groupNames.get(groupId);
+    }
+
+    public int getGroupCount() {
+        return groupNames.size();
+    }
+
+    private int getGroupId(String group) {
+        Integer id = groupIds.get(group);
+        if (id == null) {
+            id = groupNames.size();
+            groupNames.add(group);
+            groupIds.put(group, id);
+        }
+        return id;
+    }
+
+    private int getDirectionSet(Direction[] directions) {
+        for (int i = 0; i < directionSets.size(); i++) {
+            if (directionSets.get(i) == directions) {
+                return i;
+            }
+        }
+        directionSets.add(directions);
+        return directionSets.size() - 1;
+    }
+
+    /**
+     * Builds the flow field of every group and direction set in the store, if the map navigates with them,
+     * see Map.getFlowField.
+     */
+    public void buildFlowFields(Map map) {
+        for (int i = 0; i < size; i++) {
+            if (directionSet[i] != STATIONARY) {
+                map.getFlowField(groupNames.get(groupId[i]), directionSets.get(directionSet[i]));
+            }
+        }
+    }
+
+    /**
+     * Writes one column per field, each with one int per slot: x, then y, then EP, then message count.
+     * Takes 16 bytes per slot.
+     */
+    public void writeColumns(ByteBuffer out) {
+        IntBuffer columns = out.asIntBuffer(); // Bulk copies, in the byte order of out
+        columns.put(x, 0, size).put(y, 0, size).put(ep, 0, size);
+        for (int i = 0; i < size; i++) {
+            columns.put(views[i].messages.size());
+        }
+        out.position(out.position() + 4 * Integer.BYTES * size);
+    }
+
+    /**
+     * @return the number of bytes {@link #writeCheckpoint(ByteBuffer)} writes
+     */
+    public int getCheckpointSize() {
+        int bytes = Integer.BYTES;
+        for (int i = 0; i < size; i++) {
+            bytes += 3 * Integer.BYTES + 3 + Long.BYTES * views[i].random.getState().length + views[i].messages.getSerializedSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the changing state of every slot: position, EP, last direction, obstacle flag, random stream state
+     * and messages. Group, initial EP and directions are left out, they are the same on every run of a config.
+     */
+    public void writeCheckpoint(ByteBuffer out) {
+        out.putInt(size);
+        for (int i = 0; i < size; i++) {
+            out.putInt(x[i]).putInt(y[i]).putInt(ep[i]);
+            out.put(lastDirection[i]).put((byte) (lastHitObstacle[i] ? 1 : 0));
+            long[] state = views[i].random.getState();
+            out.put((byte) state.length);
+            for (long word : state) {
+                out.putLong(word);
+            }
+            views[i].messages.writeTo(out);
+        }
+    }
+
+    /**
+     * Restores a checkpoint written by a store holding the same agents, created in the same order.
+     * Only the store and the agents change, putting the agents back on the map is left to the caller.
+     */
+    public void readCheckpoint(ByteBuffer in) {
+        int count = in.getInt();
+        if (count != size) {
+            throw new IllegalArgumentException("Checkpoint holds " + count + " agents, the store " + size);
+        }
+        for (int i = 0; i < size; i++) {
+            x[i] = in.getInt();
+            y[i] = in.getInt();
+            ep[i] = in.getInt();
+            lastDirection[i] = in.get();
+            lastHitObstacle[i] = in.get() != 0;
+            long[] state = new long[in.get()];
+            for (int j = 0; j < state.length; j++) {
+                state[j] = in.getLong();
+            }
+            views[i].random.setState(state);
+            views[i].messages.readFrom(in);
+        }
+    }
+
+    static Direction toDirection(byte ordinal) {
+        return ordinal == NO_DIRECTION ? null : DIRECTIONS[ordinal];
+    }
+
+    static byte toOrdinal(Direction direction) {
+        return direction == null ? NO_DIRECTION : (byte) direction.ordinal();
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        ep = Arrays.copyOf(ep, capacity);
+        initialEp = Arrays.copyOf(initialEp, capacity);
+        groupId = Arrays.copyOf(groupId, capacity);
+        lastDirection = Arrays.copyOf(lastDirection, capacity);
+        lastHitObstacle = Arrays.copyOf(lastHitObstacle, capacity);
+        directionSet = Arrays.copyOf(directionSet, capacity);
+        plannedDirection = Arrays.copyOf(plannedDirection, capacity);
+        plannedDistance = Arrays.copyOf(plannedDistance, capacity);
+        plannedSteps = Arrays.copyOf(plannedSteps, capacity);
+        plannedMeet = Arrays.copyOf(plannedMeet, capacity);
+        plannedBlock = Arrays.copyOf(plannedBlock, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+}
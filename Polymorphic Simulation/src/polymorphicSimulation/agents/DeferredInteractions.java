@@ -0,0 +1,17 @@
+package polymorphicSimulation.agents;
+
+/**
+ * Receives the interactions of a move instead of carrying them out, so they can be sent as messages to the
+ * agents they concern once every agent has moved, see {@link Agent#commitMove(polymorphicSimulation.environment.Map, DeferredInteractions)}.
+ */
+public interface DeferredInteractions {
+    /**
+     * The agent met other, an agent that is not a master, and stopped. Their messages are not exchanged yet.
+     */
+    void meet(Agent agent, Agent other);
+
+    /**
+     * The agent reached its SafeZone, or met a master there. Its messages are not handed to master yet.
+     */
+    void reachSafeZone(Agent agent, Master master);
+}
@@ -2,16 +2,17 @@ package polymorphicSimulation.agents;
 
 import polymorphicSimulation.environment.Map;
 import polymorphicSimulation.environment.Point;
+import polymorphicSimulation.simulation.SimulationContext;
 import polymorphicSimulation.utils.Direction;
 
-import java.util.List;
-
 import static polymorphicSimulation.style.ColorInConsole.*;
 
 public class Elf extends Agent {
 
-    public Elf(String name, String group, Point location, int ep, String alliance) {
-        super(name, group, location, ep, alliance);
+    private static final Direction[] DIRECTIONS = {Direction.NORTHEAST, Direction.NORTHWEST, Direction.SOUTHEAST, Direction.SOUTHWEST};
+
+    public Elf(SimulationContext context, String name, String group, Point location, int ep, String alliance) {
+        super(context, name, group, location, ep, alliance, DIRECTIONS);
     }
 
     @Override
@@ -21,8 +22,8 @@ public class Elf extends Agent {
 
     @Override
     public void move(Map map) {
-        List<Direction> possibleDirections = getFilteredDirections(map, List.of(Direction.NORTHEAST, Direction.NORTHWEST, Direction.SOUTHEAST, Direction.SOUTHWEST));
-        commonMoveLogic(map, possibleDirections);
+        int directionCount = getFilteredDirections(map, DIRECTIONS);
+        commonMoveLogic(map, filteredDirections, directionCount);
     }
 
 }
\ No newline at end of file
@@ -2,16 +2,17 @@ package polymorphicSimulation.agents;
 
 import polymorphicSimulation.environment.Map;
 import polymorphicSimulation.environment.Point;
+import polymorphicSimulation.simulation.SimulationContext;
 import polymorphicSimulation.utils.Direction;
 
-import java.util.List;
-
 import static polymorphicSimulation.style.ColorInConsole.*;
 
 public class Human extends Agent {
 
-    public Human(String name, String group, Point location, int ep, String alliance) {
-        super(name, group, location, ep, alliance);
+    private static final Direction[] DIRECTIONS = {Direction.NORTH, Direction.SOUTH, Direction.EAST, Direction.WEST};
+
+    public Human(SimulationContext context, String name, String group, Point location, int ep, String alliance) {
+        super(context, name, group, location, ep, alliance, DIRECTIONS);
     }
 
     @Override
@@ -21,7 +22,7 @@ public class Human extends Agent {
 
     @Override
     public void move(Map map) {
-        List<Direction> possibleDirections = getFilteredDirections(map, List.of(Direction.NORTH, Direction.SOUTH, Direction.EAST, Direction.WEST));
-        commonMoveLogic(map, possibleDirections);
+        int directionCount = getFilteredDirections(map, DIRECTIONS);
+        commonMoveLogic(map, filteredDirections, directionCount);
     }
 }
\ No newline at end of file
@@ -2,11 +2,24 @@ package polymorphicSimulation.agents;
 
 import polymorphicSimulation.environment.Map;
 import polymorphicSimulation.environment.Point;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.utils.Leaderboard;
+import polymorphicSimulation.utils.MessageSet;
 
 public class Master extends Agent {
 
-    public Master(String name, String group, Point location, int ep, String alliance) {
-        super(name, group, location, ep, alliance);
+    private final Leaderboard leaderboard; // Notified when the message count grows, may be null
+
+    public Master(SimulationContext context, String name, String group, Point location, int ep, String alliance) {
+        this(context, name, group, location, ep, alliance, null);
+    }
+
+    /**
+     * @param leaderboard notified when the message count grows, the caller registers the master with it
+     */
+    public Master(SimulationContext context, String name, String group, Point location, int ep, String alliance, Leaderboard leaderboard) {
+        super(context, name, group, location, ep, alliance, null); // Masters never move
+        this.leaderboard = leaderboard;
     }
 
     @Override
@@ -19,14 +32,15 @@ public class Master extends Agent {
         return null;
     }
 
-    @Override
-    protected void generateMessages() {
-//        No messages generated for Masters
+    public void receiveMessage(int message) {
+        if (messages.add(message) && leaderboard != null) { // Ignored if already collected
+            leaderboard.update(this);
+        }
     }
 
-    public void receiveMessage(String message) {
-        if (!messages.contains(message)) {
-            messages.add(message);
+    public void receiveMessages(MessageSet newMessages) {
+        if (messages.addAll(newMessages) > 0 && leaderboard != null) {
+            leaderboard.update(this);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package polymorphicSimulation.agents;
+
+import polymorphicSimulation.environment.FlowField;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.environment.Point;
+import polymorphicSimulation.events.BlockReason;
+import polymorphicSimulation.events.SimulationEvents;
+import polymorphicSimulation.utils.Direction;
+import polymorphicSimulation.utils.SimulationRNG;
+
+/**
+ * Data oriented version of the agents' movement: direction filtering, the move itself, barrier hits and
+ * EP updates run over the primitive arrays of an {@link AgentStore}.
+ * <p>
+ * The outcome, the random draws and the published events are the same as calling {@link Agent#move(Map)}
+ * on each agent of the species in this package. The agent objects are only touched for their random
+ * stream and for the rare parts that need them: interactions, transfers to a master and deaths.
+ */
+public class MovementKernel {
+    private final AgentStore store;
+    private final Map map;
+    private final SimulationEvents events;
+    private final Direction[] filteredDirections = new Direction[Direction.values().length]; // Reused every move
+    private int[] zoneOwners = new int[0]; // Store group id -> the owner value Map uses for the group's SafeZone, 0 if it has none
+    private Point[] safeZones = new Point[0]; // Store group id -> tile of the group's master
+
+    public MovementKernel(AgentStore store, Map map) {
+        this.store = store;
+        this.map = map;
+        this.events = map.getEvents();
+    }
+
+    /**
+     * Moves the agents in the given slots, in that order.
+     */
+    public void moveAll(int[] order, int count) {
+        if (zoneOwners.length < store.getGroupCount()) {
+            resolveGroups();
+        }
+        for (int i = 0; i < count; i++) {
+            move(order[i]);
+        }
+    }
+
+    private void resolveGroups() {
+        int groups = store.getGroupCount();
+        zoneOwners = new int[groups];
+        safeZones = new Point[groups];
+        for (int g = 0; g < groups; g++) {
+            String group = store.getGroupName(g);
+            zoneOwners[g] = map.getGroupId(group) + 1;
+            safeZones[g] = map.getSafeZoneLocation(group);
+        }
+    }
+
+    private void move(int i) {
+        int set = store.directionSet[i];
+        if (set == AgentStore.STATIONARY) {
+            return; // Masters don't move
+        }
+        Agent agent = store.views[i];
+        SimulationRNG random = agent.random;
+        int group = store.groupId[i];
+        int ep = store.ep[i];
+
+        // Filter the directions, see Agent.getFilteredDirections
+        int excluded = store.lastHitObstacle[i] ? store.lastDirection[i] : AgentStore.NO_DIRECTION;
+        store.lastHitObstacle[i] = false;
+        int count = 0;
+        for (Direction direction : store.directionSets.get(set)) {
+            if (direction.ordinal() != excluded) {
+                filteredDirections[count++] = direction;
+            }
+        }
+        if (ep != 0 && ep * 1.0 / store.initialEp[i] <= 0.2) {
+            Direction toSafeZone = getSafeZoneDirection(i, group, set);
+            events.safeZoneHeading(agent, toSafeZone);
+            if (toSafeZone != null) {
+                filteredDirections[0] = toSafeZone; // Prioritize direction to SafeZone
+                count = 1;
+            }
+        }
+
+        // Move, see Agent.commonMoveLogic
+        if (ep <= 0) {
+            events.moveBlocked(agent, BlockReason.DEAD);
+            return;
+        }
+        events.moveStarted(agent);
+        if (count == 0) {
+            events.moveBlocked(agent, BlockReason.NO_DIRECTION);
+            return;
+        }
+        Direction direction = filteredDirections[random.nextInt(count)];
+        int maxDistance = random.nextInt(Agent.MAX_MOVE_DISTANCE) + 1;
+        events.movePlanned(agent, direction, maxDistance);
+        moveInDirection(i, agent, zoneOwners[group], direction, maxDistance);
+        store.lastDirection[i] = (byte) direction.ordinal();
+        events.moveEnded(agent);
+    }
+
+    private Direction getSafeZoneDirection(int i, int group, int set) { // See Agent.getSafeZoneDirection
+        FlowField flowField = map.getFlowField(store.getGroupName(group), store.directionSets.get(set));
+        if (flowField != null) {
+            return flowField.getDirection(store.x[i], store.y[i]);
+        }
+        Point safeZone = safeZones[group];
+        return safeZone == null ? null : Agent.directionTowards(safeZone.x - store.x[i], safeZone.y - store.y[i]);
+    }
+
+    private void moveInDirection(int i, Agent agent, int ownZone, Direction direction, int maxDistance) {
+        int currentX = store.x[i];
+        int currentY = store.y[i];
+        for (int step = 0; step < maxDistance; step++) {
+            int stepsLeft = maxDistance - step;
+            int newX = currentX + direction.dx;
+            int newY = currentY + direction.dy;
+
+            if (!map.isTileWithinBounds(newX, newY)) {
+                events.moveBlocked(agent, BlockReason.OUTSIDE_BOUNDS);
+                break;
+            }
+            if (map.isObstacleAt(newX, newY)) {
+                events.moveBlocked(agent, BlockReason.OBSTACLE);
+                barrierHit(i, agent, direction, stepsLeft);
+                break;
+            }
+            int zone = map.getSafeZoneOwner(newX, newY);
+            if (zone != 0 && zone != ownZone) {
+                events.moveBlocked(agent, BlockReason.OTHER_SAFE_ZONE);
+                barrierHit(i, agent, direction, stepsLeft);
+                break;
+            }
+            Agent otherAgent = map.getAgentAt(newX, newY);
+            if (otherAgent != null && otherAgent != agent) {
+                agent.handleAgentInteraction(otherAgent, map);
+                break;
+            }
+            map.removeAgent(currentX, currentY);
+            store.x[i] = newX;
+            store.y[i] = newY;
+            map.placeAgent(agent);
+            if (updateEp(i, agent, zone != 0, currentX, currentY)) {
+                break;
+            }
+            currentX = newX;
+            currentY = newY;
+            if (zone != 0) {
+                agent.transferMessagesToMaster(map); // Only does something in the agent's own SafeZone
+            }
+        }
+    }
+
+    /**
+     * @param inOwnZone true if the agent now stands in its own SafeZone
+     * @return true if the agent died
+     */
+    private boolean updateEp(int i, Agent agent, boolean inOwnZone, int oldX, int oldY) {
+        int epBefore = store.ep[i];
+        if (inOwnZone) {
+            store.ep[i] = store.initialEp[i];
+            events.epUpdated(agent, epBefore, 0, true);
+            return false;
+        }
+        int distance = Math.abs(store.x[i] - oldX) + Math.abs(store.y[i] - oldY); // manhattan distance
+        store.ep[i] = Math.max(0, epBefore - distance);
+        events.epUpdated(agent, epBefore, distance, false);
+        if (store.ep[i] <= 0) { // Masters never get here, they don't move
+            agent.becomeObstacle(map);
+            return true;
+        }
+        return false;
+    }
+
+    private void barrierHit(int i, Agent agent, Direction direction, int stepsLeft) {
+        int epLost = direction.isDiagonal() ? 2 * stepsLeft : stepsLeft;
+        store.lastHitObstacle[i] = true;
+        int epBefore = store.ep[i];
+        store.ep[i] = Math.max(0, epBefore - epLost);
+        events.barrierHit(agent, direction, epBefore, epLost);
+        if (store.ep[i] <= 0) {
+            agent.becomeObstacle(map);
+        }
+    }
+}
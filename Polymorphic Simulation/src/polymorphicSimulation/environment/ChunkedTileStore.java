@@ -0,0 +1,191 @@
+package polymorphicSimulation.environment;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.utils.RNGFactory;
+import polymorphicSimulation.utils.SimulationRNG;
+import polymorphicSimulation.utils.XoshiroRNG;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Splits the map into CHUNK_SIZE x CHUNK_SIZE chunks created on first touch, so a huge map with a sparse
+ * population only pays for the chunks its agents come near.
+ * <p>
+ * A chunk's obstacles are generated when the chunk is created, from the map seed and the chunk coordinates
+ * only, so the world is the same whatever order the chunks are visited in. A chunk allocates its agent and
+ * dead agent arrays only once something is stored in it. Chunks may be created by several threads at once:
+ * the first one installed is kept and the other, identical, copies are dropped.
+ */
+class ChunkedTileStore implements TileStore {
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // 64 x 64 tiles
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final VarHandle OBSTACLE_WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final List<int[]> zoneBounds; // Group id -> {minX, minY, maxX, maxY} of the group's SafeZone, obstacles are kept out
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final long seed;
+    private final RNGFactory.Kind rngKind;
+    private final double obstacleDensity;
+    private final AtomicReferenceArray<Chunk> chunks;
+
+    private static final class Chunk {
+        final long[] obstacles = new long[CHUNK_SIZE * CHUNK_SIZE / 64]; // Bit index (y << CHUNK_SHIFT) | x, in chunk coordinates
+        volatile Agent[] agents; // Null until an agent is placed in the chunk
+        volatile byte[] dead;    // Null until an agent dies in the chunk
+    }
+
+    /**
+     * @param zoneBounds the bounds of every SafeZone, filled in by the map before the first chunk is created
+     * @param seed       seed of the obstacle layout, each chunk derives its own stream from it
+     */
+    ChunkedTileStore(List<int[]> zoneBounds, int width, int height, long seed, RNGFactory.Kind rngKind, double obstacleDensity) {
+        this.zoneBounds = zoneBounds;
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+        int chunksY = (height + CHUNK_MASK) >>> CHUNK_SHIFT;
+        this.seed = seed;
+        this.rngKind = rngKind;
+        this.obstacleDensity = obstacleDensity;
+        this.chunks = new AtomicReferenceArray<>(Math.multiplyExact(chunksX, chunksY));
+    }
+
+    @Override
+    public Agent getAgent(int x, int y) {
+        Chunk chunk = chunks.get(chunkIndex(x, y)); // Reading never creates a chunk
+        if (chunk == null) {
+            return null;
+        }
+        Agent[] agents = chunk.agents;
+        return agents == null ? null : agents[tileIndex(x, y)];
+    }
+
+    @Override
+    public void setAgent(int x, int y, Agent agent) {
+        if (agent == null) {
+            Chunk chunk = chunks.get(chunkIndex(x, y));
+            if (chunk != null && chunk.agents != null) {
+                chunk.agents[tileIndex(x, y)] = null;
+            }
+            return;
+        }
+        Chunk chunk = getChunk(x, y);
+        Agent[] agents = chunk.agents;
+        if (agents == null) {
+            agents = allocateAgents(chunk);
+        }
+        agents[tileIndex(x, y)] = agent;
+    }
+
+    @Override
+    public boolean isObstacle(int x, int y) {
+        int index = tileIndex(x, y);
+        return (getChunk(x, y).obstacles[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public void addObstacle(int x, int y) {
+        int index = tileIndex(x, y);
+        OBSTACLE_WORDS.getAndBitwiseOr(getChunk(x, y).obstacles, index >>> 6, 1L << index);
+    }
+
+    @Override
+    public byte getDead(int x, int y) {
+        Chunk chunk = chunks.get(chunkIndex(x, y));
+        if (chunk == null) {
+            return 0;
+        }
+        byte[] dead = chunk.dead;
+        return dead == null ? 0 : dead[tileIndex(x, y)];
+    }
+
+    @Override
+    public void setDead(int x, int y, byte dead) {
+        Chunk chunk = getChunk(x, y);
+        byte[] deadAgents = chunk.dead;
+        if (deadAgents == null) {
+            deadAgents = allocateDead(chunk);
+        }
+        deadAgents[tileIndex(x, y)] = dead;
+    }
+
+    @Override
+    public int getZoneOwner(int x, int y) {
+        // SafeZones are a handful of rectangles, cheaper to test than a per tile array on a huge map
+        for (int groupId = zoneBounds.size() - 1; groupId >= 0; groupId--) { // On tiny maps a later group overwrites an overlap
+            int[] bounds = zoneBounds.get(groupId);
+            if (x >= bounds[0] && y >= bounds[1] && x <= bounds[2] && y <= bounds[3]) {
+                return groupId + 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void setZoneOwner(int x, int y, byte owner) {
+        // Nothing to store, the zone bounds describe every SafeZone
+    }
+
+    private int chunkIndex(int x, int y) {
+        return (y >>> CHUNK_SHIFT) * chunksX + (x >>> CHUNK_SHIFT);
+    }
+
+    private static int tileIndex(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    private Chunk getChunk(int x, int y) {
+        int index = chunkIndex(x, y);
+        Chunk chunk = chunks.get(index);
+        if (chunk == null) {
+            Chunk created = createChunk(x >>> CHUNK_SHIFT, y >>> CHUNK_SHIFT);
+            chunk = chunks.compareAndSet(index, null, created) ? created : chunks.get(index);
+        }
+        return chunk;
+    }
+
+    private static synchronized Agent[] allocateAgents(Chunk chunk) {
+        if (chunk.agents == null) {
+            chunk.agents = new Agent[CHUNK_SIZE * CHUNK_SIZE];
+        }
+        return chunk.agents;
+    }
+
+    private static synchronized byte[] allocateDead(Chunk chunk) {
+        if (chunk.dead == null) {
+            chunk.dead = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        }
+        return chunk.dead;
+    }
+
+    private Chunk createChunk(int chunkX, int chunkY) {
+        Chunk chunk = new Chunk();
+        int originX = chunkX << CHUNK_SHIFT;
+        int originY = chunkY << CHUNK_SHIFT;
+        int sizeX = Math.min(CHUNK_SIZE, width - originX); // Chunks on the right and bottom edges may be cut
+        int sizeY = Math.min(CHUNK_SIZE, height - originY);
+
+        long chunkSeed = XoshiroRNG.splitMix64(seed + ((long) chunkY * chunksX + chunkX + 1) * 0x9E3779B97F4A7C15L);
+        SimulationRNG random = RNGFactory.create(rngKind, chunkSeed); // Never journaled: chunks are created in no fixed order
+        int numObstacles = (int) (sizeX * sizeY * obstacleDensity);
+        int attempts = numObstacles * 8; // A chunk crowded by SafeZones gets fewer obstacles instead of retrying forever
+        for (int placed = 0; placed < numObstacles && attempts > 0; attempts--) {
+            int x = random.nextInt(sizeX);
+            int y = random.nextInt(sizeY);
+            int index = (y << CHUNK_SHIFT) | x;
+            long bit = 1L << index;
+            // Ensure obstacles don't overlap SafeZones or other obstacles.
+            if ((chunk.obstacles[index >>> 6] & bit) == 0 && getZoneOwner(originX + x, originY + y) == 0) {
+                chunk.obstacles[index >>> 6] |= bit;
+                placed++;
+            }
+        }
+        return chunk;
+    }
+}
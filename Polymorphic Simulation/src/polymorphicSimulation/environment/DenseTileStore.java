@@ -0,0 +1,69 @@
+package polymorphicSimulation.environment;
+
+import polymorphicSimulation.agents.Agent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Stores every tile up front. Fastest for the maps that fit in memory, which is the default.
+ */
+class DenseTileStore implements TileStore {
+    private static final VarHandle OBSTACLE_WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int width;
+    private final Agent[][] grid; // Now a 2D array to store agents
+    private final long[] obstacles; // Bitset of obstacle tiles, bit index y * width + x
+    private final byte[] deadAgents; // Indexed by y * width + x
+    private final byte[] zoneOwner; // Per tile: 0 if not a SafeZone, else group id + 1. Indexed by y * width + x
+
+    DenseTileStore(int width, int height) {
+        this.width = width;
+        this.grid = new Agent[height][width]; // Initialize grid
+        this.obstacles = new long[(width * height + 63) >>> 6];
+        this.deadAgents = new byte[width * height];
+        this.zoneOwner = new byte[width * height];
+    }
+
+    @Override
+    public Agent getAgent(int x, int y) {
+        return grid[y][x];
+    }
+
+    @Override
+    public void setAgent(int x, int y, Agent agent) {
+        grid[y][x] = agent;
+    }
+
+    @Override
+    public boolean isObstacle(int x, int y) {
+        int index = y * width + x;
+        return (obstacles[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public void addObstacle(int x, int y) {
+        int index = y * width + x;
+        OBSTACLE_WORDS.getAndBitwiseOr(obstacles, index >>> 6, 1L << index); // Atomic: agents of neighbouring stripes may die at once, see PartitionedStep
+    }
+
+    @Override
+    public byte getDead(int x, int y) {
+        return deadAgents[y * width + x];
+    }
+
+    @Override
+    public void setDead(int x, int y, byte dead) {
+        deadAgents[y * width + x] = dead;
+    }
+
+    @Override
+    public int getZoneOwner(int x, int y) {
+        return zoneOwner[y * width + x];
+    }
+
+    @Override
+    public void setZoneOwner(int x, int y, byte owner) {
+        zoneOwner[y * width + x] = owner;
+    }
+}
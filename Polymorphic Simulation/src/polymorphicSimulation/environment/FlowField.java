@@ -0,0 +1,271 @@
+package polymorphicSimulation.environment;
+
+import polymorphicSimulation.utils.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Shortest ways back to a group's SafeZone for agents moving in one set of directions, see Map.getFlowField.
+ * <p>
+ * Holds, for every tile, how many single tile moves the agent needs to reach a tile of its SafeZone without
+ * entering an obstacle, the map edge or another group's SafeZone, and the first of those moves. Other agents
+ * are not in the way: they are interactions, not barriers. Obstacles only ever get added, so distances only
+ * grow, and {@link #addObstacle} repairs just the tiles whose shortest way went through the new obstacle.
+ * <p>
+ * The direction of a tile only depends on the distances, taking the first direction of the set that gets
+ * one tile closer: a repaired field is the same as one built from scratch on the same map.
+ */
+public class FlowField {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final byte NO_DIRECTION = -1;
+    private static final Direction[] ALL_DIRECTIONS = Direction.values();
+
+    private final Map map;
+    private final int groupId;
+    private final Direction[] directions;
+    private final int width;
+    private final int height;
+    private final int[] distance; // Tile y * width + x -> moves to the SafeZone, UNREACHABLE if blocked or cut off
+    private final byte[] next;    // Tile -> ordinal of the first move, NO_DIRECTION in the SafeZone or if unreachable
+    private final int[] affected; // Tile -> repair that found the tile affected, see addObstacle
+    private int repair = 0;
+    private int[] queue;
+    private long[] open;  // Min heap of addObstacle, distance in the high half and tile in the low half of an entry
+    private int openSize = 0;
+
+    /**
+     * @param groupId    SafeZone the field leads to, see Map.getGroupId
+     * @param directions the moves the agents can make, a set holding the opposite of each of its directions
+     */
+    FlowField(Map map, int groupId, Direction[] directions) {
+        this.map = map;
+        this.groupId = groupId;
+        this.directions = directions.clone();
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        int tiles = width * height;
+        this.distance = new int[tiles];
+        this.next = new byte[tiles];
+        this.affected = new int[tiles];
+        this.queue = new int[64];
+        this.open = new long[64];
+        build();
+    }
+
+    public int getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * @return true if the field is for agents moving in exactly these directions, in any order
+     */
+    public boolean hasDirections(Direction[] directions) {
+        return getMask(this.directions) == getMask(directions);
+    }
+
+    static int getMask(Direction[] directions) {
+        int mask = 0;
+        for (Direction direction : directions) {
+            mask |= 1 << direction.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * @return the first move of a shortest way to the SafeZone, or null if (x, y) is in it or cut off from it
+     */
+    public Direction getDirection(int x, int y) {
+        byte direction = next[y * width + x];
+        return direction == NO_DIRECTION ? null : ALL_DIRECTIONS[direction];
+    }
+
+    /**
+     * @return number of moves from (x, y) to the SafeZone, 0 in it, UNREACHABLE if cut off from it
+     */
+    public int getDistance(int x, int y) {
+        return distance[y * width + x];
+    }
+
+    private void build() { // Breadth first from every free tile of the SafeZone
+        Arrays.fill(distance, UNREACHABLE);
+        int tail = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (map.getSafeZoneOwner(x, y) == groupId + 1 && !map.isObstacleAt(x, y)) {
+                    distance[y * width + x] = 0;
+                    tail = enqueue(tail, y * width + x);
+                }
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int tile = queue[head];
+            int x = tile % width;
+            int y = tile / width;
+            for (Direction direction : directions) {
+                int fromX = x - direction.dx; // The tile that reaches this one by moving in direction
+                int fromY = y - direction.dy;
+                if (isPassable(fromX, fromY) && distance[fromY * width + fromX] == UNREACHABLE) {
+                    distance[fromY * width + fromX] = distance[tile] + 1;
+                    tail = enqueue(tail, fromY * width + fromX);
+                }
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                updateNext(x, y);
+            }
+        }
+    }
+
+    /**
+     * Repairs the field after an obstacle was added at (x, y): finds the tiles left without a neighbour one move
+     * closer to the SafeZone, spreading out from the obstacle, then gives them their new distances from the
+     * unaffected tiles around them. Everything else keeps its distance.
+     */
+    void addObstacle(int x, int y) {
+        int obstacle = y * width + x;
+        if (distance[obstacle] == UNREACHABLE) {
+            return; // Already blocked or cut off, no shortest way goes through it
+        }
+        repair++;
+        affected[obstacle] = repair;
+        int tail = enqueue(0, obstacle);
+        for (int head = 0; head < tail; head++) { // Tiles come out by increasing distance
+            int tile = queue[head];
+            int tileX = tile % width;
+            int tileY = tile / width;
+            for (Direction direction : directions) {
+                int fromX = tileX - direction.dx;
+                int fromY = tileY - direction.dy;
+                if (!map.isTileWithinBounds(fromX, fromY)) {
+                    continue;
+                }
+                int from = fromY * width + fromX;
+                if (affected[from] != repair && distance[from] == distance[tile] + 1 && !hasCloserNeighbour(fromX, fromY)) {
+                    affected[from] = repair;
+                    tail = enqueue(tail, from);
+                }
+            }
+        }
+
+        distance[obstacle] = UNREACHABLE;
+        next[obstacle] = NO_DIRECTION;
+        for (int i = 1; i < tail; i++) {
+            int tile = queue[i];
+            distance[tile] = UNREACHABLE;
+            int best = UNREACHABLE;
+            for (Direction direction : directions) {
+                int toX = tile % width + direction.dx;
+                int toY = tile / width + direction.dy;
+                if (map.isTileWithinBounds(toX, toY) && affected[toY * width + toX] != repair) {
+                    best = Math.min(best, distance[toY * width + toX]);
+                }
+            }
+            if (best != UNREACHABLE) {
+                distance[tile] = best + 1;
+                push((long) distance[tile] << 32 | tile);
+            }
+        }
+        while (openSize > 0) {
+            long entry = poll();
+            int tile = (int) entry;
+            if ((int) (entry >>> 32) != distance[tile]) {
+                continue; // Lowered again since it was queued
+            }
+            for (Direction direction : directions) {
+                int fromX = tile % width - direction.dx;
+                int fromY = tile / width - direction.dy;
+                if (!map.isTileWithinBounds(fromX, fromY)) {
+                    continue;
+                }
+                int from = fromY * width + fromX;
+                if (affected[from] == repair && from != obstacle && distance[from] > distance[tile] + 1) {
+                    distance[from] = distance[tile] + 1;
+                    push((long) distance[from] << 32 | from);
+                }
+            }
+        }
+
+        for (int i = 0; i < tail; i++) { // New distances change the direction of these tiles and of their neighbours
+            int tile = queue[i];
+            updateNext(tile % width, tile / width);
+            for (Direction direction : directions) {
+                updateNext(tile % width - direction.dx, tile / width - direction.dy);
+            }
+        }
+    }
+
+    private boolean hasCloserNeighbour(int x, int y) { // Closer neighbour not affected by the current repair
+        int target = distance[y * width + x] - 1;
+        for (Direction direction : directions) {
+            int toX = x + direction.dx;
+            int toY = y + direction.dy;
+            if (map.isTileWithinBounds(toX, toY) && affected[toY * width + toX] != repair && distance[toY * width + toX] == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateNext(int x, int y) {
+        if (!map.isTileWithinBounds(x, y)) {
+            return;
+        }
+        int tile = y * width + x;
+        next[tile] = NO_DIRECTION;
+        if (distance[tile] == UNREACHABLE || distance[tile] == 0) {
+            return;
+        }
+        for (Direction direction : directions) {
+            int toX = x + direction.dx;
+            int toY = y + direction.dy;
+            if (map.isTileWithinBounds(toX, toY) && distance[toY * width + toX] == distance[tile] - 1) {
+                next[tile] = (byte) direction.ordinal();
+                return;
+            }
+        }
+    }
+
+    private boolean isPassable(int x, int y) { // Tiles of the group's own SafeZone are already at distance 0
+        return map.isTileWithinBounds(x, y) && !map.isObstacleAt(x, y) && map.getSafeZoneOwner(x, y) == 0;
+    }
+
+    private int enqueue(int tail, int tile) {
+        if (tail == queue.length) {
+            queue = Arrays.copyOf(queue, tail * 2);
+        }
+        queue[tail] = tile;
+        return tail + 1;
+    }
+
+    private void push(long entry) {
+        if (openSize == open.length) {
+            open = Arrays.copyOf(open, openSize * 2);
+        }
+        int i = openSize++;
+        while (i > 0 && open[(i - 1) / 2] > entry) { // Moves bigger parents down until the entry fits
+            open[i] = open[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        open[i] = entry;
+    }
+
+    private long poll() {
+        long top = open[0];
+        long last = open[--openSize];
+        int i = 0;
+        while (2 * i + 1 < openSize) { // Moves smaller children up until the last entry fits
+            int child = 2 * i + 1;
+            if (child + 1 < openSize && open[child + 1] < open[child]) {
+                child++;
+            }
+            if (open[child] >= last) {
+                break;
+            }
+            open[i] = open[child];
+            i = child;
+        }
+        open[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,52 @@
+package polymorphicSimulation.environment;
+
+import polymorphicSimulation.utils.SimulationRNG;
+
+import java.util.Arrays;
+
+/**
+ * The free tiles of a map outside its SafeZones, as a list with the position of each tile in it: adding,
+ * removing and drawing a uniformly random tile all take constant time. Removing moves the last tile of the
+ * list into the hole, so the order of the list depends on the history of the map, which is seeded too.
+ */
+class FreeTileIndex {
+    private static final int ABSENT = -1;
+
+    private final int[] tiles;     // The free tiles, y * width + x, in the first size entries
+    private final int[] positions; // Tile -> index in tiles, ABSENT if the tile is not free
+    private int size = 0;
+
+    FreeTileIndex(int tileCount) {
+        this.tiles = new int[tileCount];
+        this.positions = new int[tileCount];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(int tile) {
+        if (positions[tile] == ABSENT) {
+            positions[tile] = size;
+            tiles[size++] = tile;
+        }
+    }
+
+    void remove(int tile) {
+        int position = positions[tile];
+        if (position != ABSENT) {
+            int last = tiles[--size];
+            tiles[position] = last;
+            positions[last] = position;
+            positions[tile] = ABSENT;
+        }
+    }
+
+    /**
+     * @return a free tile, drawn with one random number, or -1 if none is left
+     */
+    int draw(SimulationRNG random) {
+        return size == 0 ? -1 : tiles[random.nextInt(size)];
+    }
+}
@@ -2,31 +2,80 @@ package polymorphicSimulation.environment;
 
 import polymorphicSimulation.agents.Agent;
 import polymorphicSimulation.agents.Master;
-import polymorphicSimulation.utils.MonteCarloRNG;
+import polymorphicSimulation.events.SimulationEvents;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.utils.Direction;
+import polymorphicSimulation.utils.SimulationRNG;
 
 import java.util.*;
 
 import static polymorphicSimulation.style.ColorInConsole.*;
 
-public class Map {
+public final class Map {
 
     private final int width;
     private final int height;
-    private final Agent[][] grid; // Now a 2D array to store agents
-    private final Set<Point> obstacles;
-    private final java.util.Map<Point, String> deadAgents;
+    private final TileStore tiles; // Agents, obstacles and dead agents (dead: group id + 1, DEAD_UNKNOWN_GROUP if the group has no SafeZone)
     private final java.util.Map<String, Point> safeZones; // Use the full name of Map since we created another Map class
-    private final MonteCarloRNG random = new MonteCarloRNG();
-
-    public Map(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.grid = new Agent[height][width]; // Initialize grid
-        this.obstacles = new HashSet<>();
-        this.deadAgents = new HashMap<>();
+    private final List<String> zoneGroups = new ArrayList<>(); // Group id -> group name
+    private final java.util.Map<String, Integer> groupIds = new HashMap<>(); // Group name -> group id
+    private final List<Point> masterTiles = new ArrayList<>(); // Group id -> tile of the group's master
+    private final List<int[]> zoneBounds = new ArrayList<>(); // Group id -> {minX, minY, maxX, maxY} of the group's SafeZone
+    private static final byte DEAD_UNKNOWN_GROUP = -1;
+    private static final int MAX_RANDOM_DRAWS = 16; // Random tiles tried before drawing from the free tile index
+    private static final int MAX_CHUNKED_DRAWS = 1 << 16; // Random tiles tried on a chunked map before giving up
+    private final SimulationContext context;
+    private final SimulationRNG random;
+    private final SimulationEvents events;
+    private final boolean chunked;
+    private FreeTileIndex freeTiles = null; // Built once random draws keep missing, see drawFreeTile
+    private final boolean flowFieldNavigation;
+    private volatile FlowField[] flowFields = new FlowField[0]; // Built on first use, see getFlowField
+    private int[] newObstacles = new int[16]; // Tiles turned into obstacles since the last updateFlowFields
+    private int newObstacleCount = 0;
+
+    /**
+     * Size, events and random stream come from the context. With a chunked map (see SimulationConfig),
+     * tiles are stored in chunks created on first touch, each generating its own obstacles: generation
+     * is then lazy and does not publish obstacleAdded events.
+     */
+    public Map(SimulationContext context) {
+        this.context = context;
+        this.width = context.getConfig().getMapWidth();
+        this.height = context.getConfig().getMapHeight();
+        this.random = context.newRandom(); // First stream of the run
+        this.events = context.getEvents();
         this.safeZones = new HashMap<>();
-        generateSafeZones(3, 2); // Generate SafeZones upon map creation
-        generateObstacles(); // Generate obstacles upon map creation
+        this.chunked = context.getConfig().isChunkedMap();
+        this.tiles = chunked
+                ? new ChunkedTileStore(zoneBounds, width, height, context.newSeed(), context.getConfig().getRngKind(),
+                        context.getConfig().getObstacleDensity())
+                : new DenseTileStore(width, height);
+        generateSafeZones(context.getConfig().getSafeZoneWidth(), context.getConfig().getSafeZoneHeight()); // Generate SafeZones upon map creation
+        if (!chunked) {
+            generateObstacles(); // Generate obstacles upon map creation
+        }
+        this.flowFieldNavigation = context.getConfig().isFlowFieldNavigation() && !chunked; // Chunked maps are too big for per tile fields
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public SimulationContext getContext() {
+        return context;
+    }
+
+    public SimulationRNG getRandom() { // Random stream for map generation and agent placement
+        return random;
+    }
+
+    public SimulationEvents getEvents() {
+        return events;
     }
 
     public boolean isTileFree(Point location) {
@@ -37,59 +86,185 @@ public class Map {
     }
 
     public boolean isTileWithinBounds(Point location) {
-        return location.x >= 0 && location.x < width && location.y >= 0 && location.y < height;
+        return isTileWithinBounds(location.x, location.y);
+    }
+
+    public boolean isTileWithinBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
     }
 
     public boolean isObstacleAt(Point location) {
-        return obstacles.contains(location);
+        return isTileWithinBounds(location) && isObstacleAt(location.x, location.y);
+    }
+
+    public boolean isObstacleAt(int x, int y) { // Caller checks the bounds
+        return tiles.isObstacle(x, y);
     }
 
     public boolean isAgentAt(Point location) {
-        return grid[location.y][location.x] != null;
+        return tiles.getAgent(location.x, location.y) != null;
     }
 
     public void addDeadAgent(Point location, String group) {
-        this.deadAgents.put(location, group);
+        addDeadAgent(location.x, location.y, group);
     }
 
-    private String getDeadAgentGroup(Point location) {
-        return this.deadAgents.get(location);
+    public void addDeadAgent(int x, int y, String group) {
+        int groupId = getGroupId(group);
+        tiles.setDead(x, y, groupId < 0 ? DEAD_UNKNOWN_GROUP : (byte) (groupId + 1));
     }
 
-    public boolean isInSafeZone(Point location, String group) {
-        for (java.util.Map.Entry<String, Point> entry : safeZones.entrySet()) {
-            if (entry.getKey().startsWith(group) && entry.getValue().equals(location)) { //Check if group name starts with the provided String
-                return true;
-            }
+    private String getDeadAgentGroup(int x, int y) { // Null if no agent died there
+        byte dead = tiles.getDead(x, y);
+        if (dead == 0) {
+            return null;
         }
-        return false;
+        return dead == DEAD_UNKNOWN_GROUP ? "" : zoneGroups.get(dead - 1);
+    }
+
+    public boolean isInSafeZone(Point location, String group) {
+        return isInSafeZone(location.x, location.y, group);
+    }
+
+    public boolean isInSafeZone(int x, int y, String group) {
+        int owner = getSafeZoneOwner(x, y);
+        return owner != 0 && owner == getGroupId(group) + 1;
     }
 
     public boolean isInOtherSafeZone(Point location, String group) {
-        for (java.util.Map.Entry<String, Point> entry : safeZones.entrySet()) {
-            if (!entry.getKey().startsWith(group) && entry.getValue().equals(location)) { //Check if not the agent's group and the point is in another SafeZone
+        return isInOtherSafeZone(location.x, location.y, group);
+    }
+
+    public boolean isInOtherSafeZone(int x, int y, String group) {
+        int owner = isTileWithinBounds(x, y) ? getZoneOwner(x, y) : 0;
+        return owner != 0 && owner != getGroupId(group) + 1; // SafeZone of another group
+    }
+
+    public boolean isSafeZone(Point location) {
+        return getZoneOwner(location) != 0;
+    }
+
+    public boolean isSafeZone(int x, int y) {
+        return isTileWithinBounds(x, y) && getZoneOwner(x, y) != 0;
+    }
+
+    public Point getSafeZoneLocation(String group) {
+        int groupId = getGroupId(group);
+        return groupId < 0 ? null : masterTiles.get(groupId); // Null if the group has no SafeZone
+    }
+
+    /**
+     * @return the id of the group's SafeZone, or -1 if the group has none
+     */
+    public int getGroupId(String group) {
+        Integer groupId = groupIds.get(group);
+        return groupId == null ? -1 : groupId;
+    }
+
+    /**
+     * @return 0 if the tile is not a SafeZone (or outside the map), otherwise the owning group id + 1
+     */
+    private int getZoneOwner(Point location) {
+        return getSafeZoneOwner(location.x, location.y);
+    }
+
+    /**
+     * @return 0 if the tile is not a SafeZone (or outside the map), otherwise the owning group id + 1, see getGroupId
+     */
+    public int getSafeZoneOwner(int x, int y) {
+        if (!isTileWithinBounds(x, y)) {
+            return 0;
+        }
+        return getZoneOwner(x, y);
+    }
+
+    private int getZoneOwner(int x, int y) { // Caller checks the bounds
+        return tiles.getZoneOwner(x, y);
+    }
+
+    /**
+     * @return true if a SafeZone tile, and so a master, is at most distance tiles away from (x, y) along both axes
+     */
+    public boolean isNearSafeZone(int x, int y, int distance) {
+        for (int[] bounds : zoneBounds) {
+            if (x >= bounds[0] - distance && y >= bounds[1] - distance && x <= bounds[2] + distance && y <= bounds[3] + distance) {
                 return true;
             }
         }
         return false;
     }
 
-    public boolean isSafeZone(Point location) {
-        return safeZones.containsValue(location);
+    public void addObstacle(Point location) {
+        addObstacle(location.x, location.y);
     }
 
-    public Point getSafeZoneLocation(String group) {
-        for (java.util.Map.Entry<String, Point> entry : safeZones.entrySet()) {
-            if (entry.getKey().equals(group)) {
-                return entry.getValue();
+    public void addObstacle(int x, int y) {
+        tiles.addObstacle(x, y);
+        events.obstacleAdded(x, y);
+        if (flowFields.length > 0) {
+            recordNewObstacle(y * width + x);
+        }
+        if (freeTiles != null) {
+            freeTiles.remove(y * width + x);
+        }
+    }
+
+    private synchronized void recordNewObstacle(int tile) { // Agents die on several threads with a PartitionedStep
+        if (newObstacleCount == newObstacles.length) {
+            newObstacles = Arrays.copyOf(newObstacles, newObstacleCount * 2);
+        }
+        newObstacles[newObstacleCount++] = tile;
+    }
+
+    public boolean isFlowFieldNavigation() {
+        return flowFieldNavigation;
+    }
+
+    /**
+     * Returns the flow field leading agents of the group that move in these directions to their SafeZone,
+     * building it the first time it is asked for. Fields are only repaired by {@link #updateFlowFields()}, so
+     * during a step every agent reads them as they were when the step started, whichever thread moves it.
+     *
+     * @return null if flow field navigation is off (see SimulationConfig.withFlowFieldNavigation) or the group has no SafeZone
+     */
+    public FlowField getFlowField(String group, Direction[] directions) {
+        int groupId = getGroupId(group);
+        if (!flowFieldNavigation || groupId < 0 || directions == null) {
+            return null;
+        }
+        for (FlowField flowField : flowFields) {
+            if (flowField.getGroupId() == groupId && flowField.hasDirections(directions)) {
+                return flowField;
             }
         }
-        return null; // Or throw an exception, or return a default safe zone. Handle appropriately
+        return buildFlowField(groupId, directions);
     }
 
-    public void addObstacle(Point location) {
-        System.out.println("addObstacle method initiated. Adding obstacle at location: (" + location.x + ", " + location.y + ")");
-        obstacles.add(location);
+    private synchronized FlowField buildFlowField(int groupId, Direction[] directions) {
+        for (FlowField flowField : flowFields) {
+            if (flowField.getGroupId() == groupId && flowField.hasDirections(directions)) {
+                return flowField; // Built by another thread in the meantime
+            }
+        }
+        FlowField flowField = new FlowField(this, groupId, directions);
+        FlowField[] fields = Arrays.copyOf(flowFields, flowFields.length + 1);
+        fields[fields.length - 1] = flowField;
+        flowFields = fields;
+        return flowField;
+    }
+
+    /**
+     * Repairs the flow fields around the obstacles added since the last call. Called by the simulation after
+     * every step.
+     */
+    public synchronized void updateFlowFields() {
+        for (int i = 0; i < newObstacleCount; i++) {
+            int tile = newObstacles[i];
+            for (FlowField flowField : flowFields) {
+                flowField.addObstacle(tile % width, tile / width);
+            }
+        }
+        newObstacleCount = 0;
     }
 
     private void generateSafeZones(int sizeX, int sizeY) {
@@ -97,109 +272,201 @@ public class Map {
         defineSafeZone("Elf", width - 1, 0, -1, 1, sizeX, sizeY);
         defineSafeZone("Orc", 0, height - 1, 1, -1, sizeX, sizeY);
         defineSafeZone("Goblin", width - 1, height - 1, -1, -1,sizeX ,sizeY);
-
-        System.out.println("safeZones" + safeZones);
     }
 
     private void defineSafeZone(String name, int startX, int startY, int deltaX, int deltaY, int sizeX, int sizeY) {
+        int groupId = zoneGroups.size();
+        zoneGroups.add(name);
+        groupIds.put(name, groupId);
+        masterTiles.add(new Point(startX, startY)); // First tile of the zone holds the master
+        int endX = startX + (sizeX - 1) * deltaX;
+        int endY = startY + (sizeY - 1) * deltaY;
+        zoneBounds.add(new int[]{Math.min(startX, endX), Math.min(startY, endY), Math.max(startX, endX), Math.max(startY, endY)});
         int count = 0;
         for (int y = 0; y < sizeY; y++) {
             for (int x = 0; x < sizeX; x++) {
-                safeZones.put(name + (count == 0 ? "" : count),
-                        new Point(startX + (x * deltaX), startY + (y * deltaY)));
+                String zoneName = name + (count == 0 ? "" : count);
+                Point zone = new Point(startX + (x * deltaX), startY + (y * deltaY));
+                safeZones.put(zoneName, zone);
+                if (isTileWithinBounds(zone)) {
+                    tiles.setZoneOwner(zone.x, zone.y, (byte) (groupId + 1)); // On tiny maps a later group overwrites an overlap
+                }
+                events.safeZoneDefined(zoneName, zone.x, zone.y);
                 count++;
             }
         }
     }
 
     public void generateObstacles() {
-        System.out.println("Generating Obstacles"); // debugging
-        int numObstacles = (int) (width * height * 0.04); // 4% of the map are obstacles (adjust as needed)
+        int numObstacles = (int) (width * height * context.getConfig().getObstacleDensity());
 
-        System.out.println("Obstacles:");
         for (int i = 0; i < numObstacles; i++) {
-            int x = random.nextInt(width);
-            int y = random.nextInt(height);
-            Point location = new Point(x, y);
-            // Ensure obstacles don't overlap SafeZones or other obstacles.
-            if (!safeZones.containsValue(location) && !obstacles.contains(location) && grid[y][x] == null) {
-                System.out.print(" - (" + location.x + ", " + location.y + ")");
-                addObstacle(location);
-            } else { //Try again if an obstacle is on a forbidden place
-                i--;
+            Point tile = drawFreeTile(); // Obstacles don't overlap SafeZones, agents or other obstacles
+            if (tile == null) {
+                break; // Map full
             }
+            addObstacle(tile.x, tile.y);
         }
-        System.out.println();
+    }
+
+    /**
+     * Draws a uniformly random free tile outside the SafeZones, from the map's random stream, e.g. to place an agent.
+     *
+     * @throws IllegalStateException if no such tile is left
+     */
+    public Point getRandomFreeTile() {
+        Point tile = drawFreeTile();
+        if (tile == null && chunked) {
+            throw new IllegalStateException("No free tile found outside the SafeZones of the " + width + "x" + height
+                    + " chunked map in " + MAX_CHUNKED_DRAWS + " random draws");
+        }
+        if (tile == null) {
+            throw new IllegalStateException("No free tile left outside the SafeZones of the " + width + "x" + height + " map");
+        }
+        return tile;
+    }
+
+    /**
+     * Random tiles are tried first: on a mostly empty map the first one is usually free. Past MAX_RANDOM_DRAWS misses,
+     * the tile is drawn from an index of the free tiles, kept up to date from then on, so a crowded map costs
+     * the same. Chunked maps are too big to index, and their width * height may not fit an int tile id: they
+     * only draw at random, and give up after MAX_CHUNKED_DRAWS misses.
+     *
+     * @return the tile, or null if no tile is free, or none was found on a chunked map
+     */
+    private Point drawFreeTile() {
+        if (freeTiles == null) {
+            int maxDraws = chunked ? MAX_CHUNKED_DRAWS : MAX_RANDOM_DRAWS;
+            for (int draws = 0; draws < maxDraws; draws++) {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                if (isFreeOutsideSafeZones(x, y)) {
+                    return new Point(x, y);
+                }
+            }
+            if (chunked) {
+                return null;
+            }
+            freeTiles = new FreeTileIndex(width * height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (isFreeOutsideSafeZones(x, y)) {
+                        freeTiles.add(y * width + x);
+                    }
+                }
+            }
+        }
+        int tile = freeTiles.draw(random);
+        return tile < 0 ? null : new Point(tile % width, tile / width);
+    }
+
+    private boolean isFreeOutsideSafeZones(int x, int y) {
+        return getZoneOwner(x, y) == 0 && !isObstacleAt(x, y) && tiles.getAgent(x, y) == null;
+    }
+
+    /**
+     * Drops the free tile index once the map is populated: moves would otherwise keep it up to date for nothing,
+     * and from several threads with a PartitionedStep. A later draw builds it again if needed.
+     */
+    public void releaseFreeTiles() {
+        freeTiles = null;
     }
 
     public void placeAgent(Agent agent) {
-            grid[agent.location.y][agent.location.x] = agent;
-            System.out.println(agent.name + " placed at (" + agent.location.x + ", " + agent.location.y + ")"); // into - game
+            tiles.setAgent(agent.getX(), agent.getY(), agent);
+            if (freeTiles != null) {
+                freeTiles.remove(agent.getY() * width + agent.getX());
+            }
+            events.agentPlaced(agent);
     }
 
     public Agent getAgentAt(Point location) {
-        if (isTileWithinBounds(location)) {
-            return grid[location.y][location.x];
+        return getAgentAt(location.x, location.y);
+    }
+
+    public Agent getAgentAt(int x, int y) {
+        if (isTileWithinBounds(x, y)) {
+            return tiles.getAgent(x, y);
         }
         return null;
     }
 
     public void removeAgent(Point location) {
-        if (isTileWithinBounds(location)) {
-            grid[location.y][location.x] = null;
+        removeAgent(location.x, location.y);
+    }
+
+    public void removeAgent(int x, int y) {
+        if (isTileWithinBounds(x, y)) {
+            tiles.setAgent(x, y, null);
+            if (freeTiles != null && isFreeOutsideSafeZones(x, y)) {
+                freeTiles.add(y * width + x);
+            }
         }
     }
 
     public void printMap() {
+        StringBuilder frame = new StringBuilder(width * height * 16); // One print per map, not per tile
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                Point currentPoint = new Point(x, y);
-                boolean printed = false;
-
-                Agent agentAt = getAgentAt(currentPoint);
-                if (agentAt != null) {
-                    if (isInSafeZone(agentAt.location, agentAt.getGroup())){
-                        System.out.print(colorSafeZone(getAgentSymbol(agentAt)) + getAgentSymbol(agentAt) + getAgentNumber(agentAt) + " " + Reset);
-                    } else {
-                        System.out.print(colorAgentSymbol(getAgentSymbol(agentAt), agentAt.getGroup())
-                                + getAgentNumber(agentAt) + " " + Reset);
-                    }
-                    printed = true;
-                }
-
-                // Check for obstacles and dead agents
-                if (!printed) {
-                    if (deadAgents.containsKey(currentPoint)) {
-                        String deadAgentGroup = getDeadAgentGroup(currentPoint);
-                        char symbol = 'X';
-                        System.out.print(colorAgentSymbol(symbol, deadAgentGroup) + "  " + Reset);
-
-                        printed = true;
+                appendTile(frame, x, y);
+            }
+            frame.append(System.lineSeparator());
+        }
+        System.out.print(frame);
+    }
 
-                    } else if (obstacles.contains(currentPoint)) {
-                        System.out.print(Red + "#  " + Reset);
-                        printed = true;
-                    }
-                    else {
-                        for (var entry : safeZones.entrySet()) {
-                            if (entry.getValue().equals(currentPoint)) {
-                                System.out.print(colorSafeZone(entry.getKey().charAt(0)) + ".  "+Reset);
-                                printed = true;
-                                break;
-                            }
-                        }
-                    }
+    /**
+     * Appends the tile as printMap shows it: 3 columns wide, with its colors.
+     */
+    void appendTile(StringBuilder out, int x, int y) {
+        Agent agentAt = tiles.getAgent(x, y);
+        if (agentAt != null) {
+            char symbol = getAgentSymbol(agentAt);
+            if (isInSafeZone(x, y, agentAt.getGroup())) {
+                out.append(colorSafeZone(symbol)).append(symbol);
+            } else {
+                out.append(colorAgentSymbol(symbol, agentAt.getGroup()));
+            }
+            out.append(getAgentNumber(agentAt)).append(' ').append(Reset);
+            return;
+        }
 
-                    // Print ".  " for empty spaces
-                    if (!printed) {
-                        System.out.print(".  ");
-                    }
-                }
+        // Check for obstacles and dead agents
+        String deadAgentGroup = getDeadAgentGroup(x, y);
+        if (deadAgentGroup != null) {
+            out.append(colorAgentSymbol('X', deadAgentGroup)).append("  ").append(Reset);
+        } else if (isObstacleAt(x, y)) {
+            out.append(Red).append("#  ").append(Reset);
+        } else {
+            int owner = getZoneOwner(x, y);
+            if (owner != 0) {
+                out.append(colorSafeZone(zoneGroups.get(owner - 1).charAt(0))).append(".  ").append(Reset);
+            } else {
+                out.append(".  "); // Empty space
             }
-            System.out.println();
         }
     }
 
+    /**
+     * @return a value that changes whenever what appendTile shows for the tile changes
+     */
+    long getTileKey(int x, int y) {
+        Agent agentAt = tiles.getAgent(x, y);
+        if (agentAt != null) {
+            long kind = isInSafeZone(x, y, agentAt.getGroup()) ? 2 : 1;
+            long groupId = getGroupId(agentAt.getGroup()) + 1; // Agents of groups without a SafeZone are all shown in white
+            return kind << 56 | groupId << 32 | (long) getAgentSymbol(agentAt) << 16 | getAgentNumber(agentAt);
+        }
+        byte dead = tiles.getDead(x, y);
+        if (dead != 0) {
+            return 3L << 56 | (dead & 0xFF);
+        }
+        if (isObstacleAt(x, y)) {
+            return 4L << 56;
+        }
+        return 5L << 56 | getZoneOwner(x, y);
+    }
+
     private char getAgentSymbol(Agent agent) {
         if (agent instanceof Master){
             return agent.group.charAt(0);
@@ -0,0 +1,130 @@
+package polymorphicSimulation.environment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static polymorphicSimulation.style.ColorInConsole.Reset;
+
+/**
+ * Draws a map live in an ANSI terminal, for watching large simulations.
+ * <p>
+ * The first frame clears the screen and draws every tile at the top left. Later frames are compared tile by
+ * tile with the previous one and only the tiles that changed are drawn, each run of changed tiles after a
+ * single cursor move. A frame is built and encoded in reused buffers and sent with one write. Frames asked for sooner
+ * than the target FPS allows are skipped, the next drawn frame catches up with everything that changed.
+ */
+public class MapRenderer {
+    private static final String CLEAR_SCREEN = "\u001b[2J\u001b[H";
+    private static final int TILE_WIDTH = 3; // Columns per tile, see Map.appendTile
+
+    private final Map map;
+    private final OutputStream out;
+    private final long frameIntervalNanos;
+    private final long[] shown; // Tile key on screen, per tile, row by row
+    private final StringBuilder frame = new StringBuilder();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE); // Like String.getBytes
+    private char[] chars = new char[0];       // Copy of the frame being encoded
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
+    private boolean firstFrame = true;
+    private long lastFrameNanos;
+
+    /**
+     * @param targetFps most frames drawn per second, 0 or less to draw every frame
+     */
+    public MapRenderer(Map map, OutputStream out, int targetFps) {
+        this.map = map;
+        this.out = out;
+        this.frameIntervalNanos = targetFps > 0 ? 1_000_000_000L / targetFps : 0;
+        this.shown = new long[Math.multiplyExact(map.getWidth(), map.getHeight())];
+    }
+
+    /**
+     * Draws the map unless the previous frame was drawn less than a frame interval ago.
+     *
+     * @return true if a frame was drawn
+     */
+    public boolean render() {
+        if (!firstFrame && System.nanoTime() - lastFrameNanos < frameIntervalNanos) {
+            return false;
+        }
+        renderNow();
+        return true;
+    }
+
+    /**
+     * Draws the map whatever the target FPS, e.g. for the last frame of a run.
+     */
+    public void renderNow() {
+        frame.setLength(0);
+        int width = map.getWidth();
+        int height = map.getHeight();
+        if (firstFrame) {
+            frame.append(CLEAR_SCREEN);
+        }
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            boolean cursorInPlace = false; // True while the cursor sits right after the last tile drawn
+            for (int x = 0; x < width; x++) {
+                long key = map.getTileKey(x, y);
+                if (!firstFrame && key == shown[row + x]) {
+                    cursorInPlace = false;
+                    continue;
+                }
+                shown[row + x] = key;
+                if (!cursorInPlace) {
+                    moveCursor(y, x);
+                    cursorInPlace = true;
+                }
+                map.appendTile(frame, x, y);
+            }
+        }
+        moveCursor(height, 0); // Leave the cursor under the map for whatever is printed next
+        frame.append(Reset);
+        firstFrame = false;
+        lastFrameNanos = System.nanoTime();
+        write();
+    }
+
+    /**
+     * Forgets what is on screen, the next frame clears it and draws every tile again.
+     */
+    public void reset() {
+        firstFrame = true;
+        Arrays.fill(shown, 0);
+    }
+
+    private void moveCursor(int y, int x) {
+        frame.append("\u001b[").append(y + 1).append(';').append(x * TILE_WIDTH + 1).append('H'); // 1 based row and column
+    }
+
+    private void write() {
+        int length = frame.length();
+        if (chars.length < length) { // Buffers only grow, to the size of the biggest frame
+            chars = new char[Math.max(length, 2 * chars.length)];
+            charBuffer = CharBuffer.wrap(chars);
+            bytes = ByteBuffer.allocate((int) Math.ceil(chars.length * (double) encoder.maxBytesPerChar()));
+        }
+        frame.getChars(0, length, chars, 0);
+        charBuffer.clear().limit(length);
+        bytes.clear();
+        encoder.reset();
+        encoder.encode(charBuffer, bytes, true); // Never overflows, bytes holds maxBytesPerChar per char
+        encoder.flush(bytes);
+        try {
+            out.write(bytes.array(), 0, bytes.position());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
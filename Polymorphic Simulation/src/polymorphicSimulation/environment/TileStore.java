@@ -0,0 +1,38 @@
+package polymorphicSimulation.environment;
+
+import polymorphicSimulation.agents.Agent;
+
+/**
+ * Per tile state of a {@link Map}: the agent standing on the tile, obstacles, dead agents and SafeZone owners.
+ * Callers check the bounds. Writes to different tiles may happen from different threads, see PartitionedStep.
+ */
+interface TileStore {
+
+    Agent getAgent(int x, int y);
+
+    /**
+     * @param agent the agent now on the tile, or null to clear it
+     */
+    void setAgent(int x, int y, Agent agent);
+
+    boolean isObstacle(int x, int y);
+
+    void addObstacle(int x, int y);
+
+    /**
+     * @return 0 if no agent died on the tile, else the value given to {@link #setDead(int, int, byte)}
+     */
+    byte getDead(int x, int y);
+
+    void setDead(int x, int y, byte dead);
+
+    /**
+     * @return 0 if the tile is not a SafeZone, otherwise the owning group id + 1, see Map.getGroupId
+     */
+    int getZoneOwner(int x, int y);
+
+    /**
+     * Marks the tile as part of the SafeZone of group id owner - 1. On tiny maps a later group overwrites an overlap.
+     */
+    void setZoneOwner(int x, int y, byte owner);
+}
@@ -0,0 +1,5 @@
+package polymorphicSimulation.events;
+
+public enum BlockReason {
+    DEAD, NO_DIRECTION, OUTSIDE_BOUNDS, OBSTACLE, OTHER_SAFE_ZONE
+}
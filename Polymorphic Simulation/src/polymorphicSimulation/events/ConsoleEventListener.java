@@ -0,0 +1,150 @@
+package polymorphicSimulation.events;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.utils.Direction;
+
+import static polymorphicSimulation.style.ColorInConsole.*;
+
+/**
+ * Prints simulation events to the console with the same coloured messages the agents used to print themselves.
+ */
+public class ConsoleEventListener implements SimulationListener {
+    private final EventLevel level;
+
+    public ConsoleEventListener(EventLevel level) {
+        this.level = level;
+    }
+
+    public ConsoleEventListener() {
+        this(EventLevel.DEBUG);
+    }
+
+    @Override
+    public EventLevel getLevel() {
+        return level;
+    }
+
+    @Override
+    public void onMoveStarted(Agent agent) {
+        System.out.println(agent.getColor() + agent.name + " starting move at (" + agent.getX() + ", " + agent.getY()
+                + ") with EP: " + agent.getEp() + ". Messages: " + agent.messages.size() + Reset);
+    }
+
+    @Override
+    public void onMoveEnded(Agent agent) {
+        System.out.println(Red + agent.name + " ending move at (" + agent.getX() + ", " + agent.getY()
+                + ") with EP: " + agent.getEp() + ". Messages: " + agent.messages.size() + Reset);
+    }
+
+    @Override
+    public void onMoveBlocked(Agent agent, BlockReason reason) {
+        switch (reason) {
+            case DEAD -> System.out.println(agent.getColor() + agent.name + " is Dead" + Reset);
+            case NO_DIRECTION -> System.out.println(agent.name + " cannot move (no possible directions)");
+            case OUTSIDE_BOUNDS -> System.out.println("No Move - Outside Bounds");
+            case OBSTACLE -> System.out.println("No Move - Hit Obstacle");
+            case OTHER_SAFE_ZONE -> System.out.println("No Move - Hit Other's SafeZone");
+        }
+    }
+
+    @Override
+    public void onBarrierHit(Agent agent, Direction direction, int epBefore, int epLost) {
+        System.out.println("EP before hitting barrier = " + epBefore + " --> Lost " + epLost + " --> current EP = " + agent.getEp());
+    }
+
+    @Override
+    public void onBattle(Agent agent, Agent other, String agentChoice, String otherChoice, int outcome,
+                         int agentMessagesBefore, int otherMessagesBefore) {
+        System.out.println(Cyan + agent.name + " (" + agent.group + ") of " + agentMessagesBefore + " messages, battled "
+                + other.name + " (" + other.group + ") of " + otherMessagesBefore + " messages." + Reset);
+        System.out.print(Cyan + agent.getName() + " chose " + agentChoice + ", " + other.getName() + " chose: " + otherChoice + " ||| " + Reset);
+        if (outcome == 0) {
+            System.out.print(Cyan + "Tie, no message transfer. " + Reset);
+        }
+        System.out.println(Cyan + "Result of the battle: " + agent.name + " has " + agent.messages.size() + ", "
+                + other.name + " has " + other.messages.size() + " messages" + Reset);
+    }
+
+    @Override
+    public void onMessagesTaken(Agent winner, Agent loser, int requested, int taken, int destroyed) {
+        System.out.println(Cyan + "Winner: " + winner.getName() + ", loser: " + loser.getName() + Reset);
+        if (requested == 0) {
+            System.out.println(Cyan + "Loser " + loser.getName() + " has no messages to transfer" + Reset);
+            return;
+        }
+        System.out.print(Cyan + "Winner will take " + requested + " messages" + Reset);
+        System.out.println(Cyan + " ||| Unique messages taken: " + taken + Reset);
+        if (requested > taken) {
+            System.out.println(Cyan + "Messages left to remove: " + (requested - taken) + " (removed " + destroyed + ")" + Reset);
+        }
+    }
+
+    @Override
+    public void onUnion(Agent agent, Agent other, int agentMessagesBefore, int otherMessagesBefore) {
+        System.out.print(Cyan + agent.name + " (" + agent.group + ") met his fellow " + other.name + " and unioned messages." + Reset);
+        System.out.print(Cyan + " Before union: " + agent.name + ": " + agentMessagesBefore + " messages, "
+                + other.name + ": " + otherMessagesBefore + " messages" + Reset);
+        System.out.println(Cyan + ", After union: Both have " + agent.messages.size() + " messages" + Reset);
+    }
+
+    @Override
+    public void onAllianceExchange(Agent agent, Agent other, int requested, int agentMessagesBefore, int otherMessagesBefore) {
+        System.out.println(Cyan + agent.name + " (" + agent.group + ") met " + other.name + " from allied group ("
+                + other.getGroup() + ") and exchanged messages." + Reset);
+        System.out.print(Cyan + "Before exchange: " + agent.name + " has " + agentMessagesBefore + ", "
+                + other.name + " has " + otherMessagesBefore + ". " + Reset);
+        System.out.println(Cyan + "After exchange: " + agent.name + " has " + agent.messages.size() + ", "
+                + other.name + " has " + other.messages.size() + Reset);
+    }
+
+    @Override
+    public void onDeath(Agent agent) {
+        System.out.println(agent.getName() + " becomeObstacle()");
+    }
+
+    @Override
+    public void onMasterMet(Agent agent, Master master) {
+        System.out.println(BrightBlack + BackgroundBrightCyan + agent.getName() + " had the honor of having a cup of tea with his master!" + Reset);
+    }
+
+    @Override
+    public void onMasterTransfer(Agent agent, Master master, int masterMessagesBefore) {
+        System.out.println("Transferred to master. Before " + master.getName() + " had " + masterMessagesBefore
+                + " messages. After: " + master.messages.size() + " messages");
+    }
+
+    @Override
+    public void onMovePlanned(Agent agent, Direction direction, int maxDistance) {
+        System.out.println(agent.name + " planning to move " + maxDistance + " steps " + direction);
+    }
+
+    @Override
+    public void onSafeZoneHeading(Agent agent, Direction direction) {
+        System.out.println(agent.getColor() + agent.getName() + " EP <= 0.2 - SafeZone direction: " + direction + Reset);
+    }
+
+    @Override
+    public void onEpUpdated(Agent agent, int epBefore, int distance, boolean restored) {
+        if (restored) {
+            System.out.println("EP fully restored from " + Red + epBefore + Reset + " to " + Green + agent.getEp() + Reset + " Safe Zone");
+        } else {
+            System.out.println("EP before setEp: " + epBefore + " ||| manhattanDistance " + distance + " ||| EP after: " + agent.getEp());
+        }
+    }
+
+    @Override
+    public void onAgentPlaced(Agent agent) {
+        System.out.println(agent.name + " placed at (" + agent.getX() + ", " + agent.getY() + ")");
+    }
+
+    @Override
+    public void onObstacleAdded(int x, int y) {
+        System.out.println("Obstacle added at (" + x + ", " + y + ")");
+    }
+
+    @Override
+    public void onSafeZoneDefined(String name, int x, int y) {
+        System.out.println("SafeZone " + name + " at (" + x + ", " + y + ")");
+    }
+}
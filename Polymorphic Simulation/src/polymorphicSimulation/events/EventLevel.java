@@ -0,0 +1,6 @@
+package polymorphicSimulation.events;
+
+public enum EventLevel {
+    DEBUG, // Fine grained details: planned moves, EP updates, placements
+    INFO   // Moves, interactions, deaths and transfers to masters
+}
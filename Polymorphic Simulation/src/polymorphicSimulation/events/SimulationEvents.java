@@ -0,0 +1,124 @@
+package polymorphicSimulation.events;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.utils.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Dispatches simulation events to the subscribed listeners.
+ * <p>
+ * Listeners are kept in plain arrays per level, so publishing with no subscriber is an empty loop:
+ * no strings are built and nothing is allocated. Callers that need extra work to compute an
+ * event argument should guard it with {@link #isEnabled(EventLevel)}.
+ */
+public class SimulationEvents {
+    private static final SimulationListener[] NONE = new SimulationListener[0];
+
+    private SimulationListener[] info = NONE;  // Listeners at INFO or DEBUG
+    private SimulationListener[] debug = NONE; // Listeners at DEBUG only
+
+    public void subscribe(SimulationListener listener) {
+        info = append(info, listener);
+        if (listener.getLevel() == EventLevel.DEBUG) {
+            debug = append(debug, listener);
+        }
+    }
+
+    public void unsubscribe(SimulationListener listener) {
+        info = remove(info, listener);
+        debug = remove(debug, listener);
+    }
+
+    public boolean isEnabled(EventLevel level) {
+        return (level == EventLevel.DEBUG ? debug : info).length > 0;
+    }
+
+    private static SimulationListener[] append(SimulationListener[] listeners, SimulationListener listener) {
+        SimulationListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+        copy[listeners.length] = listener;
+        return copy;
+    }
+
+    private static SimulationListener[] remove(SimulationListener[] listeners, SimulationListener listener) {
+        return Arrays.stream(listeners).filter(l -> l != listener).toArray(SimulationListener[]::new);
+    }
+
+    // ---- INFO ----
+
+    public void moveStarted(Agent agent) {
+        for (SimulationListener l : info) l.onMoveStarted(agent);
+    }
+
+    public void moveEnded(Agent agent) {
+        for (SimulationListener l : info) l.onMoveEnded(agent);
+    }
+
+    public void moveBlocked(Agent agent, BlockReason reason) {
+        for (SimulationListener l : info) l.onMoveBlocked(agent, reason);
+    }
+
+    public void barrierHit(Agent agent, Direction direction, int epBefore, int epLost) {
+        for (SimulationListener l : info) l.onBarrierHit(agent, direction, epBefore, epLost);
+    }
+
+    public void battle(Agent agent, Agent other, String agentChoice, String otherChoice, int outcome,
+                       int agentMessagesBefore, int otherMessagesBefore) {
+        for (SimulationListener l : info) {
+            l.onBattle(agent, other, agentChoice, otherChoice, outcome, agentMessagesBefore, otherMessagesBefore);
+        }
+    }
+
+    public void messagesTaken(Agent winner, Agent loser, int requested, int taken, int destroyed) {
+        for (SimulationListener l : info) l.onMessagesTaken(winner, loser, requested, taken, destroyed);
+    }
+
+    public void union(Agent agent, Agent other, int agentMessagesBefore, int otherMessagesBefore) {
+        for (SimulationListener l : info) l.onUnion(agent, other, agentMessagesBefore, otherMessagesBefore);
+    }
+
+    public void allianceExchange(Agent agent, Agent other, int requested, int agentMessagesBefore, int otherMessagesBefore) {
+        for (SimulationListener l : info) {
+            l.onAllianceExchange(agent, other, requested, agentMessagesBefore, otherMessagesBefore);
+        }
+    }
+
+    public void death(Agent agent) {
+        for (SimulationListener l : info) l.onDeath(agent);
+    }
+
+    public void masterMet(Agent agent, Master master) {
+        for (SimulationListener l : info) l.onMasterMet(agent, master);
+    }
+
+    public void masterTransfer(Agent agent, Master master, int masterMessagesBefore) {
+        for (SimulationListener l : info) l.onMasterTransfer(agent, master, masterMessagesBefore);
+    }
+
+    // ---- DEBUG ----
+
+    public void movePlanned(Agent agent, Direction direction, int maxDistance) {
+        for (SimulationListener l : debug) l.onMovePlanned(agent, direction, maxDistance);
+    }
+
+    public void safeZoneHeading(Agent agent, Direction direction) {
+        for (SimulationListener l : debug) l.onSafeZoneHeading(agent, direction);
+    }
+
+    public void epUpdated(Agent agent, int epBefore, int distance, boolean restored) {
+        for (SimulationListener l : debug) l.onEpUpdated(agent, epBefore, distance, restored);
+    }
+
+    public void agentPlaced(Agent agent) {
+        for (SimulationListener l : debug) l.onAgentPlaced(agent);
+    }
+
+    public void obstacleAdded(int x, int y) {
+        for (SimulationListener l : debug) l.onObstacleAdded(x, y);
+    }
+
+    public void safeZoneDefined(String name, int x, int y) {
+        for (SimulationListener l : debug) l.onSafeZoneDefined(name, x, y);
+    }
+}
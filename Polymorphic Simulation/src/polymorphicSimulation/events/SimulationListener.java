@@ -0,0 +1,88 @@
+package polymorphicSimulation.events;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.utils.Direction;
+
+/**
+ * Receives simulation events published through {@link SimulationEvents}.
+ * Every method has an empty default, so a listener only overrides the events it cares about.
+ * Events carry primitives and references to the live agents, so they should be read and not kept.
+ */
+public interface SimulationListener {
+
+    /**
+     * @return the lowest level this listener wants to receive
+     */
+    default EventLevel getLevel() {
+        return EventLevel.INFO;
+    }
+
+    // ---- INFO ----
+
+    default void onMoveStarted(Agent agent) {
+    }
+
+    default void onMoveEnded(Agent agent) {
+    }
+
+    default void onMoveBlocked(Agent agent, BlockReason reason) {
+    }
+
+    default void onBarrierHit(Agent agent, Direction direction, int epBefore, int epLost) {
+    }
+
+    /**
+     * @param outcome 1 if agent won, -1 if other won, 0 for a tie
+     */
+    default void onBattle(Agent agent, Agent other, String agentChoice, String otherChoice, int outcome,
+                          int agentMessagesBefore, int otherMessagesBefore) {
+    }
+
+    /**
+     * @param requested number of messages the winner was allowed to take
+     * @param taken     messages moved from loser to winner
+     * @param destroyed messages removed from the loser because the winner already had them
+     */
+    default void onMessagesTaken(Agent winner, Agent loser, int requested, int taken, int destroyed) {
+    }
+
+    default void onUnion(Agent agent, Agent other, int agentMessagesBefore, int otherMessagesBefore) {
+    }
+
+    default void onAllianceExchange(Agent agent, Agent other, int requested, int agentMessagesBefore, int otherMessagesBefore) {
+    }
+
+    default void onDeath(Agent agent) {
+    }
+
+    default void onMasterMet(Agent agent, Master master) {
+    }
+
+    default void onMasterTransfer(Agent agent, Master master, int masterMessagesBefore) {
+    }
+
+    // ---- DEBUG ----
+
+    default void onMovePlanned(Agent agent, Direction direction, int maxDistance) {
+    }
+
+    default void onSafeZoneHeading(Agent agent, Direction direction) {
+    }
+
+    /**
+     * @param distance manhattan distance travelled (unused when restored)
+     * @param restored true if EP was restored in the agent's SafeZone
+     */
+    default void onEpUpdated(Agent agent, int epBefore, int distance, boolean restored) {
+    }
+
+    default void onAgentPlaced(Agent agent) {
+    }
+
+    default void onObstacleAdded(int x, int y) {
+    }
+
+    default void onSafeZoneDefined(String name, int x, int y) {
+    }
+}
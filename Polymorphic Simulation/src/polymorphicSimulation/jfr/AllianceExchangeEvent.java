@@ -0,0 +1,38 @@
+package polymorphicSimulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("polymorphicSimulation.AllianceExchange")
+@Label("Alliance Exchange")
+@Category("Polymorphic Simulation")
+@Description("Two agents of allied groups exchange a few messages")
+@Enabled(false)
+@StackTrace(false)
+class AllianceExchangeEvent extends jdk.jfr.Event {
+    @Label("Agent")
+    String agent;
+
+    @Label("Other")
+    String other;
+
+    @Label("Requested")
+    @Description("Messages each agent was allowed to give")
+    int requested;
+
+    @Label("Agent Messages Before")
+    int agentMessagesBefore;
+
+    @Label("Other Messages Before")
+    int otherMessagesBefore;
+
+    @Label("Agent Messages After")
+    int agentMessagesAfter;
+
+    @Label("Other Messages After")
+    int otherMessagesAfter;
+}
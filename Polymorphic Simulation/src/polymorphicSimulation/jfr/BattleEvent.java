@@ -0,0 +1,47 @@
+package polymorphicSimulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("polymorphicSimulation.Battle")
+@Label("Battle")
+@Category("Polymorphic Simulation")
+@Description("Stone, leaf, scissors between agents of opposing alliances")
+@Enabled(false)
+@StackTrace(false)
+class BattleEvent extends jdk.jfr.Event {
+    @Label("Agent")
+    @Description("Agent that moved into the other")
+    String agent;
+
+    @Label("Other")
+    String other;
+
+    @Label("Agent Choice")
+    String agentChoice;
+
+    @Label("Other Choice")
+    String otherChoice;
+
+    @Label("Outcome")
+    @Description("1 if the agent won, -1 if the other won, 0 for a tie")
+    int outcome;
+
+    @Label("Messages Moved")
+    @Description("Messages taken by the winner that it did not have yet")
+    int messagesMoved;
+
+    @Label("Messages Destroyed")
+    @Description("Messages removed from the loser because the winner already had them")
+    int messagesDestroyed;
+
+    @Label("Agent Messages Before")
+    int agentMessagesBefore;
+
+    @Label("Other Messages Before")
+    int otherMessagesBefore;
+}
@@ -0,0 +1,32 @@
+package polymorphicSimulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("polymorphicSimulation.Death")
+@Label("Death")
+@Category("Polymorphic Simulation")
+@Description("An agent ran out of EP and became an obstacle")
+@Enabled(false)
+@StackTrace(false)
+class DeathEvent extends jdk.jfr.Event {
+    @Label("Agent")
+    String agent;
+
+    @Label("Group")
+    String group;
+
+    @Label("X")
+    int x;
+
+    @Label("Y")
+    int y;
+
+    @Label("Messages Held")
+    @Description("Messages the agent carried, out of the game from now on")
+    int messagesHeld;
+}
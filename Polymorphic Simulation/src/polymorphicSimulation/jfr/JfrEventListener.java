@@ -0,0 +1,110 @@
+package polymorphicSimulation.jfr;
+
+import jdk.jfr.EventType;
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.events.SimulationEvents;
+import polymorphicSimulation.events.SimulationListener;
+
+/**
+ * Turns battles, unions, alliance exchanges and deaths into JDK Flight Recorder events, so they line up
+ * with GC pauses and CPU samples in the same recording.
+ * <p>
+ * All the events of this package are disabled by default. Enable them in a recording, e.g. with
+ * {@code -XX:StartFlightRecording:settings=default,+polymorphicSimulation.Battle#enabled=true}
+ * or from JDK Mission Control. {@link #update(SimulationEvents)} keeps this listener subscribed only while
+ * a recording wants one of them, so a run without such a recording publishes events to nobody.
+ */
+public class JfrEventListener implements SimulationListener {
+    private static final EventType BATTLE = EventType.getEventType(BattleEvent.class);
+    private static final EventType UNION = EventType.getEventType(UnionEvent.class);
+    private static final EventType ALLIANCE_EXCHANGE = EventType.getEventType(AllianceExchangeEvent.class);
+    private static final EventType DEATH = EventType.getEventType(DeathEvent.class);
+
+    private boolean subscribed = false;
+    private int pendingMoved = 0;     // Messages moved by the battle being published, see onMessagesTaken
+    private int pendingDestroyed = 0;
+
+    /**
+     * Subscribes this listener to events if a running recording has enabled one of its events,
+     * unsubscribes it otherwise. Cheap enough to call once per step.
+     */
+    public void update(SimulationEvents events) {
+        boolean wanted = BATTLE.isEnabled() || UNION.isEnabled() || ALLIANCE_EXCHANGE.isEnabled() || DEATH.isEnabled();
+        if (wanted == subscribed) {
+            return;
+        }
+        if (wanted) {
+            events.subscribe(this);
+        } else {
+            events.unsubscribe(this);
+        }
+        subscribed = wanted;
+    }
+
+    @Override
+    public void onMessagesTaken(Agent winner, Agent loser, int requested, int taken, int destroyed) {
+        pendingMoved = taken; // Published right before the battle itself
+        pendingDestroyed = destroyed;
+    }
+
+    @Override
+    public void onBattle(Agent agent, Agent other, String agentChoice, String otherChoice, int outcome,
+                         int agentMessagesBefore, int otherMessagesBefore) {
+        BattleEvent event = BATTLE.isEnabled() ? new BattleEvent() : null; // Subscribed for any of the events, this one may be off
+        if (event != null && event.shouldCommit()) {
+            event.agent = agent.name;
+            event.other = other.name;
+            event.agentChoice = agentChoice;
+            event.otherChoice = otherChoice;
+            event.outcome = outcome;
+            event.messagesMoved = outcome == 0 ? 0 : pendingMoved;
+            event.messagesDestroyed = outcome == 0 ? 0 : pendingDestroyed;
+            event.agentMessagesBefore = agentMessagesBefore;
+            event.otherMessagesBefore = otherMessagesBefore;
+            event.commit();
+        }
+        pendingMoved = 0;
+        pendingDestroyed = 0;
+    }
+
+    @Override
+    public void onUnion(Agent agent, Agent other, int agentMessagesBefore, int otherMessagesBefore) {
+        UnionEvent event = UNION.isEnabled() ? new UnionEvent() : null;
+        if (event != null && event.shouldCommit()) {
+            event.agent = agent.name;
+            event.other = other.name;
+            event.agentMessagesBefore = agentMessagesBefore;
+            event.otherMessagesBefore = otherMessagesBefore;
+            event.messagesAfter = agent.messages.size();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onAllianceExchange(Agent agent, Agent other, int requested, int agentMessagesBefore, int otherMessagesBefore) {
+        AllianceExchangeEvent event = ALLIANCE_EXCHANGE.isEnabled() ? new AllianceExchangeEvent() : null;
+        if (event != null && event.shouldCommit()) {
+            event.agent = agent.name;
+            event.other = other.name;
+            event.requested = requested;
+            event.agentMessagesBefore = agentMessagesBefore;
+            event.otherMessagesBefore = otherMessagesBefore;
+            event.agentMessagesAfter = agent.messages.size();
+            event.otherMessagesAfter = other.messages.size();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onDeath(Agent agent) {
+        DeathEvent event = DEATH.isEnabled() ? new DeathEvent() : null;
+        if (event != null && event.shouldCommit()) {
+            event.agent = agent.name;
+            event.group = agent.group;
+            event.x = agent.getX();
+            event.y = agent.getY();
+            event.messagesHeld = agent.messages.size();
+            event.commit();
+        }
+    }
+}
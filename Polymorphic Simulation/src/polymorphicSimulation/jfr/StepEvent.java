@@ -0,0 +1,29 @@
+package polymorphicSimulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One simulation step: its duration is the time spent shuffling and moving the agents.
+ */
+@Name("polymorphicSimulation.Step")
+@Label("Simulation Step")
+@Category("Polymorphic Simulation")
+@Description("Shuffle and move of every agent for one step")
+@Enabled(false)
+@StackTrace(false)
+public class StepEvent extends jdk.jfr.Event {
+    @Label("Run Seed")
+    public long seed;
+
+    @Label("Step")
+    public int step;
+
+    @Label("Live Agents")
+    @Description("Agents with EP left at the end of the step, masters excluded")
+    public int liveAgents;
+}
@@ -0,0 +1,32 @@
+package polymorphicSimulation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("polymorphicSimulation.Union")
+@Label("Union")
+@Category("Polymorphic Simulation")
+@Description("Two agents of the same group merge their messages")
+@Enabled(false)
+@StackTrace(false)
+class UnionEvent extends jdk.jfr.Event {
+    @Label("Agent")
+    String agent;
+
+    @Label("Other")
+    String other;
+
+    @Label("Agent Messages Before")
+    int agentMessagesBefore;
+
+    @Label("Other Messages Before")
+    int otherMessagesBefore;
+
+    @Label("Messages After")
+    @Description("Messages held by both agents after the union")
+    int messagesAfter;
+}
@@ -0,0 +1,99 @@
+package polymorphicSimulation.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Copy of the counters and phase histograms of a {@link SimulationMetrics} at the end of a step.
+ * A snapshot never changes, so it can be handed to other threads.
+ */
+public class MetricsSnapshot {
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final int step;
+    private final long[] counters;
+    private final LatencyHistogram[] phases;
+
+    MetricsSnapshot(int step, long[] counters, LatencyHistogram[] phases) {
+        this.step = step;
+        this.counters = counters.clone();
+        this.phases = new LatencyHistogram[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            this.phases[i] = phases[i].copy();
+        }
+    }
+
+    /**
+     * @return number of steps run when the snapshot was taken
+     */
+    public int getStep() {
+        return step;
+    }
+
+    public long getCounter(SimulationMetrics.Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    public long getPhaseCount(SimulationMetrics.Phase phase) {
+        return phases[phase.ordinal()].getCount();
+    }
+
+    public double getPhaseMeanNanos(SimulationMetrics.Phase phase) {
+        return phases[phase.ordinal()].getMeanNanos();
+    }
+
+    public long getPhasePercentileNanos(SimulationMetrics.Phase phase, double percentile) {
+        return phases[phase.ordinal()].getPercentileNanos(percentile);
+    }
+
+    /**
+     * @return the snapshot as a JSON object: step, counters by name, and per phase the count, total, mean,
+     * min, max and 50th, 90th and 99th percentiles in nanoseconds
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n  \"step\": ").append(step).append(",\n  \"counters\": {");
+        SimulationMetrics.Counter[] counterNames = SimulationMetrics.Counter.values();
+        for (int i = 0; i < counterNames.length; i++) {
+            json.append(i == 0 ? "\n" : ",\n").append("    \"").append(counterNames[i].getKey()).append("\": ").append(counters[i]);
+        }
+        json.append("\n  },\n  \"phases\": {");
+        SimulationMetrics.Phase[] phaseNames = SimulationMetrics.Phase.values();
+        for (int i = 0; i < phaseNames.length; i++) {
+            LatencyHistogram phase = phases[i];
+            json.append(i == 0 ? "\n" : ",\n").append("    \"").append(phaseNames[i].getKey()).append("\": {")
+                    .append("\"count\": ").append(phase.getCount())
+                    .append(", \"totalNanos\": ").append(phase.getTotalNanos())
+                    .append(", \"meanNanos\": ").append(String.format(Locale.ROOT, "%.1f", phase.getMeanNanos()))
+                    .append(", \"minNanos\": ").append(phase.getMinNanos());
+            for (double percentile : PERCENTILES) {
+                json.append(", \"p").append((int) percentile).append("Nanos\": ").append(phase.getPercentileNanos(percentile));
+            }
+            json.append(", \"maxNanos\": ").append(phase.getMaxNanos()).append('}');
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    public void writeJson(Path file) throws IOException {
+        Files.writeString(file, toJson());
+    }
+
+    /**
+     * @return a one line summary: step, counters and mean time per phase
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Step ").append(step).append(':');
+        for (SimulationMetrics.Counter counter : SimulationMetrics.Counter.values()) {
+            summary.append(' ').append(counter.getKey()).append('=').append(counters[counter.ordinal()]);
+        }
+        for (SimulationMetrics.Phase phase : SimulationMetrics.Phase.values()) {
+            summary.append(' ').append(phase.getKey()).append('=')
+                    .append(String.format(Locale.ROOT, "%.1fus", getPhaseMeanNanos(phase) / 1000));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,248 @@
+package polymorphicSimulation.metrics;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.events.SimulationListener;
+import polymorphicSimulation.utils.Direction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Counters and per phase latency histograms of one simulation run.
+ * <p>
+ * Counters are fed by the simulation events, so the metrics are subscribed like any other INFO listener
+ * (see Simulation.setMetrics). Phases are timed by whoever runs them with {@link #startPhase()} and
+ * {@link #endPhase(Phase, long)}. Like the run itself, the live metrics belong to the simulation thread:
+ * other threads read the snapshots published every snapshotInterval steps, which is what the JMX
+ * attributes and the snapshot listener see.
+ */
+public class SimulationMetrics implements SimulationListener, SimulationMetricsMXBean {
+
+    public enum Phase {
+        STATUS_PRINT("statusPrint"),
+        SHUFFLE("shuffle"),
+        MOVE("move"),
+        RENDER("render"),
+        WIN_CHECK("winCheck");
+
+        private final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+
+        public String getKey() { // Name in JSON and JMX
+            return key;
+        }
+    }
+
+    public enum Counter {
+        MOVES("moves"),
+        BARRIER_HITS("barrierHits"),
+        BATTLES_WON("battlesWon"),   // Won by the agent that moved into the other
+        BATTLES_LOST("battlesLost"), // Lost by the agent that moved into the other
+        BATTLES_TIED("battlesTied"),
+        UNIONS("unions"),
+        ALLIANCE_EXCHANGES("allianceExchanges"),
+        DEATHS("deaths"),
+        MASTER_TRANSFERS("masterTransfers"),
+        MESSAGES_DESTROYED("messagesDestroyed"); // Removed from battle losers because the winner already had them
+
+        private final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+
+        public String getKey() { // Name in JSON and JMX
+            return key;
+        }
+    }
+
+    private final long[] counters = new long[Counter.values().length];
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+    private final int snapshotInterval;
+    private Consumer<MetricsSnapshot> snapshotListener = null;
+    private volatile MetricsSnapshot published;
+    private int step = 0;
+    private ObjectName objectName = null;
+
+    /**
+     * @param snapshotInterval a snapshot is published every snapshotInterval steps
+     */
+    public SimulationMetrics(int snapshotInterval) {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be at least 1 step, got " + snapshotInterval);
+        }
+        this.snapshotInterval = snapshotInterval;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+        this.published = new MetricsSnapshot(step, counters, phases); // Not snapshot(), which a subclass may override
+    }
+
+    /**
+     * @param listener called on the simulation thread with every published snapshot, may be null
+     */
+    public void setSnapshotListener(Consumer<MetricsSnapshot> listener) {
+        this.snapshotListener = listener;
+    }
+
+    /**
+     * @return the start time to pass to {@link #endPhase(Phase, long)}
+     */
+    public long startPhase() {
+        return System.nanoTime();
+    }
+
+    public void endPhase(Phase phase, long start) {
+        phases[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /**
+     * Called by the simulation once a step is over, publishes a snapshot every snapshotInterval steps.
+     */
+    public void endStep(int step) {
+        this.step = step;
+        if (step % snapshotInterval == 0) {
+            publish();
+        }
+    }
+
+    /**
+     * Publishes a snapshot of the current values, e.g. once the run is over.
+     */
+    public MetricsSnapshot publish() {
+        MetricsSnapshot snapshot = snapshot();
+        published = snapshot;
+        if (snapshotListener != null) {
+            snapshotListener.accept(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return a copy of the current values, for the simulation thread only
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(step, counters, phases);
+    }
+
+    /**
+     * @return the last published snapshot, safe to call from any thread
+     */
+    public MetricsSnapshot getPublished() {
+        return published;
+    }
+
+    public long getCounter(Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    // ---- JMX ----
+
+    /**
+     * Registers these metrics in the platform MBean server as polymorphicSimulation:type=SimulationMetrics,run=runId.
+     */
+    public ObjectName registerMBean(String runId) throws JMException {
+        objectName = new ObjectName("polymorphicSimulation:type=SimulationMetrics,run=" + ObjectName.quote(runId));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    public void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public int getStep() {
+        return published.getStep();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        MetricsSnapshot snapshot = published;
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            values.put(counter.getKey(), snapshot.getCounter(counter));
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseMeanNanos() {
+        MetricsSnapshot snapshot = published;
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            values.put(phase.getKey(), Math.round(snapshot.getPhaseMeanNanos(phase)));
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseP99Nanos() {
+        MetricsSnapshot snapshot = published;
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            values.put(phase.getKey(), snapshot.getPhasePercentileNanos(phase, 99));
+        }
+        return values;
+    }
+
+    @Override
+    public String getJson() {
+        return published.toJson();
+    }
+
+    // ---- Events ----
+
+    @Override
+    public void onMoveEnded(Agent agent) {
+        counters[Counter.MOVES.ordinal()]++;
+    }
+
+    @Override
+    public void onBarrierHit(Agent agent, Direction direction, int epBefore, int epLost) {
+        counters[Counter.BARRIER_HITS.ordinal()]++;
+    }
+
+    @Override
+    public void onBattle(Agent agent, Agent other, String agentChoice, String otherChoice, int outcome,
+                         int agentMessagesBefore, int otherMessagesBefore) {
+        Counter counter = outcome > 0 ? Counter.BATTLES_WON : outcome < 0 ? Counter.BATTLES_LOST : Counter.BATTLES_TIED;
+        counters[counter.ordinal()]++;
+    }
+
+    @Override
+    public void onMessagesTaken(Agent winner, Agent loser, int requested, int taken, int destroyed) {
+        counters[Counter.MESSAGES_DESTROYED.ordinal()] += destroyed;
+    }
+
+    @Override
+    public void onUnion(Agent agent, Agent other, int agentMessagesBefore, int otherMessagesBefore) {
+        counters[Counter.UNIONS.ordinal()]++;
+    }
+
+    @Override
+    public void onAllianceExchange(Agent agent, Agent other, int requested, int agentMessagesBefore, int otherMessagesBefore) {
+        counters[Counter.ALLIANCE_EXCHANGES.ordinal()]++;
+    }
+
+    @Override
+    public void onDeath(Agent agent) {
+        counters[Counter.DEATHS.ordinal()]++;
+    }
+
+    @Override
+    public void onMasterTransfer(Agent agent, Master master, int masterMessagesBefore) {
+        counters[Counter.MASTER_TRANSFERS.ordinal()]++;
+    }
+}
@@ -0,0 +1,32 @@
+package polymorphicSimulation.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of a run's metrics, see {@link SimulationMetrics#registerMBean(String)}.
+ * Attributes reflect the last published snapshot, not the step in progress.
+ */
+public interface SimulationMetricsMXBean {
+
+    int getStep();
+
+    /**
+     * @return every counter by name
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return mean duration of each phase, in nanoseconds
+     */
+    Map<String, Long> getPhaseMeanNanos();
+
+    /**
+     * @return 99th percentile duration of each phase, in nanoseconds
+     */
+    Map<String, Long> getPhaseP99Nanos();
+
+    /**
+     * @return the whole snapshot, see {@link MetricsSnapshot#toJson()}
+     */
+    String getJson();
+}
@@ -0,0 +1,258 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.DeferredInteractions;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.events.EventLevel;
+import polymorphicSimulation.utils.MessageSet;
+import polymorphicSimulation.utils.SimulationRNG;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Phaser;
+
+/**
+ * Runs every live agent and every master as an actor: a virtual thread with a bounded mailbox, owning its
+ * agent's messages. No actor changes another agent's messages, interactions are sent as messages instead.
+ * <p>
+ * A step is a sequence of phases, each ended by a barrier every actor of the phase arrives at:
+ * <ol>
+ * <li>plan: each agent plans its move against the map as it was when the step started, like with a
+ * {@link SimultaneousScheduler};</li>
+ * <li>commit: the calling thread carries the plans out in a seeded random order, the only one writing to the
+ * map. Meetings and SafeZone arrivals are noted, not carried out, see Agent.commitMove(Map, DeferredInteractions);</li>
+ * <li>offer: each agent that met another sends it a copy of its messages, and each agent that reached its
+ * SafeZone sends one to its master;</li>
+ * <li>answer: each agent answers the offers it got in commit order, see Agent.answerMeeting, and sends the
+ * initiators what they gain and lose. Masters then take the messages sent to them, one master at a time so the
+ * leaderboard sees them in a fixed order;</li>
+ * <li>apply: each initiator applies the answer it got.</li>
+ * </ol>
+ * Every random draw of an actor comes from its agent's own stream, in an order fixed by the commit order, so a
+ * game is the same however the threads are scheduled, but differs from a game of the other schedulers. An
+ * agent exchanges messages with at most one agent it met per step, and hands its master the messages it holds
+ * once every agent has moved. With an INFO listener or a journal, which are not thread safe, the actors of a
+ * phase run one after the other. The data oriented and partitioned steps of the simulation are not used.
+ * <p>
+ * Close the scheduler to stop the actors' threads.
+ */
+public class ActorScheduler implements Scheduler, DeferredInteractions, AutoCloseable {
+    // An agent is met by at most 8 agents where it stood, 8 where it moved to and 8 it was planned against in
+    // a step: mailboxes of agents never fill, so two actors never wait for each other. Masters take
+    // any number of SafeZone arrivals, the agents sending them wait while a master's mailbox is full.
+    private static final int MAILBOX_CAPACITY = 32;
+
+    private final Phaser barrier = new Phaser(1); // The calling thread is always registered, actors for one phase
+    private Actor[] actors = new Actor[16];       // Agent slot -> its actor, null if none
+    private final List<Actor> live = new ArrayList<>();    // Actors of the agents moving this step, in commit order
+    private final List<Actor> masters = new ArrayList<>();
+    private Map map;
+    private volatile Throwable failure = null; // Thrown in an actor, rethrown on the calling thread
+
+    private enum Command { PLAN, OFFER, ANSWER, APPLY, STOP }
+
+    private record Offer(Agent initiator, int rank, MessageSet messages, boolean toMaster) {
+    }
+
+    private record Answer(MessageSet gained, MessageSet lost) {
+    }
+
+    @Override
+    public void order(List<Agent> agents, int count, SimulationRNG random) {
+        random.shuffle(agents, count); // Commit order
+    }
+
+    @Override
+    public void moveAll(Simulation simulation, List<Agent> agents, int count) {
+        map = simulation.getMap();
+        // Listeners and journals are not thread safe, actors give the same game one at a time
+        boolean parallel = !map.getEvents().isEnabled(EventLevel.INFO) && simulation.getContext().getJournal() == null;
+        if (masters.isEmpty()) {
+            for (Master master : simulation.getLeaderboard().getMasters()) {
+                masters.add(getActor(master));
+            }
+        }
+        live.clear();
+        for (int i = 0; i < count; i++) {
+            Actor actor = getActor(agents.get(i));
+            actor.rank = i;
+            live.add(actor);
+        }
+
+        release(Command.PLAN, live, parallel);
+        for (int i = 0; i < count; i++) {
+            agents.get(i).commitMove(map, this);
+        }
+        release(Command.OFFER, live, parallel);
+        release(Command.ANSWER, live, parallel);
+        release(Command.ANSWER, masters, false);
+        release(Command.APPLY, live, parallel);
+
+        for (Actor actor : live) {
+            if (actor.agent.getEp() <= 0) { // Dead, never moves again
+                send(actor, Command.STOP);
+                actors[actor.agent.getIndex()] = null;
+            }
+        }
+    }
+
+    @Override
+    public void meet(Agent agent, Agent other) {
+        actors[agent.getIndex()].met = other;
+    }
+
+    @Override
+    public void reachSafeZone(Agent agent, Master master) {
+        actors[agent.getIndex()].master = master;
+    }
+
+    /**
+     * Stops every actor's thread. The scheduler starts new ones if it is used again.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < actors.length; i++) {
+            if (actors[i] != null) {
+                send(actors[i], Command.STOP);
+                actors[i] = null;
+            }
+        }
+        masters.clear();
+        live.clear();
+    }
+
+    private Actor getActor(Agent agent) {
+        int index = agent.getIndex();
+        if (index >= actors.length) {
+            actors = Arrays.copyOf(actors, Math.max(index + 1, actors.length * 2));
+        }
+        if (actors[index] == null) {
+            actors[index] = new Actor(agent);
+            Thread.ofVirtual().name("actor-" + agent.getName()).start(actors[index]);
+        }
+        return actors[index];
+    }
+
+    /**
+     * Sends command to the actors and waits until they all handled it, one after the other unless parallel.
+     */
+    private void release(Command command, List<Actor> phaseActors, boolean parallel) {
+        if (parallel) {
+            barrier.bulkRegister(phaseActors.size());
+            for (Actor actor : phaseActors) {
+                send(actor, command);
+            }
+            awaitBarrier();
+        } else {
+            for (Actor actor : phaseActors) {
+                barrier.register();
+                send(actor, command);
+                awaitBarrier();
+            }
+        }
+    }
+
+    private void awaitBarrier() {
+        barrier.arriveAndAwaitAdvance();
+        if (failure != null) {
+            throw new IllegalStateException("Agent actor failed", failure);
+        }
+    }
+
+    private static void send(Actor actor, Object message) {
+        try {
+            actor.mailbox.put(message); // Waits while the mailbox is full
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending to an agent actor", e);
+        }
+    }
+
+    /**
+     * One agent and its mailbox. Only the actor's thread touches the agent's messages and random stream while
+     * a phase runs, the fields below are set by the calling thread between phases.
+     */
+    private final class Actor implements Runnable {
+        private final Agent agent;
+        private final BlockingQueue<Object> mailbox = new ArrayBlockingQueue<>(MAILBOX_CAPACITY);
+        private final List<Offer> offers = new ArrayList<>();
+        private Answer answer = null;
+        private int rank;           // Position in the commit order
+        private Agent met = null;   // Agent met this step, see meet
+        private Master master = null; // Master to hand the messages to this step, see reachSafeZone
+
+        Actor(Agent agent) {
+            this.agent = agent;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Object message = mailbox.take();
+                    if (message instanceof Offer offer) {
+                        offers.add(offer); // Answered in the answer phase, all offers of a step come before it
+                    } else if (message instanceof Answer reply) {
+                        answer = reply;
+                    } else if (message == Command.STOP) {
+                        return;
+                    } else {
+                        try {
+                            handle((Command) message);
+                        } catch (RuntimeException | Error e) {
+                            failure = e;
+                        } finally {
+                            barrier.arriveAndDeregister();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Stops the actor
+            }
+        }
+
+        private void handle(Command command) {
+            switch (command) {
+                case PLAN -> agent.planMove(map);
+                case OFFER -> {
+                    if (met != null) {
+                        send(actors[met.getIndex()], new Offer(agent, rank, new MessageSet(agent.messages), false));
+                        met = null;
+                    }
+                    if (master != null) {
+                        send(actors[master.getIndex()], new Offer(agent, rank, new MessageSet(agent.messages), true));
+                        master = null;
+                    }
+                }
+                case ANSWER -> {
+                    offers.sort(Comparator.comparingInt(Offer::rank));
+                    for (Offer offer : offers) {
+                        if (offer.toMaster()) {
+                            Master self = (Master) agent;
+                            int messagesBefore = self.messages.size();
+                            self.receiveMessages(offer.messages());
+                            map.getEvents().masterTransfer(offer.initiator(), self, messagesBefore);
+                        } else {
+                            Answer reply = new Answer(new MessageSet(), new MessageSet());
+                            agent.answerMeeting(offer.initiator(), offer.messages(), map, reply.gained(), reply.lost());
+                            send(actors[offer.initiator().getIndex()], reply);
+                        }
+                    }
+                    offers.clear();
+                }
+                case APPLY -> {
+                    if (answer != null) {
+                        agent.applyAnswer(answer.gained(), answer.lost());
+                        answer = null;
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected command " + command);
+            }
+        }
+    }
+}
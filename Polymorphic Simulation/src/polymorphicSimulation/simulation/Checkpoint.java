@@ -0,0 +1,200 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.AgentStore;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.utils.Leaderboard;
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary checkpoint of a running simulation, restored bit for bit: a restored simulation takes the same
+ * random decisions and reaches the same states as the original one would have.
+ * <p>
+ * Layout: header {@code int MAGIC, byte VERSION}, the config, {@code long seed, int step, int totalMessages},
+ * the map's random state, the agents list order as store slots, every store slot (see
+ * {@link AgentStore#writeCheckpoint}), then the leaderboard as master indices. Generated obstacles and
+ * SafeZones are not stored: restoring regenerates the world from the config and seed, then puts the agents
+ * back and turns the tiles of the dead agents into obstacles again, which are the only changes a run makes
+ * to the map.
+ */
+public final class Checkpoint {
+    static final int MAGIC = 0x4D415343; // "MASC"
+    static final byte VERSION = 2; // Version 1 had no map generation and message settings, they get their defaults
+    private static final int HEADER_SIZE = Integer.BYTES + 1 + 5 * Integer.BYTES + 2 + Double.BYTES + 3 * Integer.BYTES
+            + Long.BYTES + 2 * Integer.BYTES;
+
+    private Checkpoint() {
+    }
+
+    /**
+     * Copies the state of the simulation into a new buffer, ready to be written. Must run on the simulation's thread,
+     * between two steps.
+     */
+    public static ByteBuffer encode(Simulation simulation) {
+        SimulationContext context = simulation.getContext();
+        SimulationConfig config = context.getConfig();
+        AgentStore store = context.getAgentStore();
+        long[] mapRandom = simulation.getMap().getRandom().getState();
+        List<Agent> agents = simulation.getAgents();
+        Leaderboard leaderboard = simulation.getLeaderboard();
+        List<Master> masters = leaderboard.getMasters();
+
+        int size = HEADER_SIZE + 1 + Long.BYTES * mapRandom.length + Integer.BYTES * (1 + agents.size())
+                + store.getCheckpointSize() + Integer.BYTES * (2 + leaderboard.getLeaders().size());
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).put(VERSION);
+        out.putInt(config.getMapWidth()).putInt(config.getMapHeight()).putInt(config.getAgentsPerGroup())
+                .putInt(config.getInitialEp()).putInt(config.getMaxSteps())
+                .put((byte) config.getRngKind().ordinal()).put((byte) ((config.isChunkedMap() ? 1 : 0) | (config.isFlowFieldNavigation() ? 2 : 0)));
+        out.putDouble(config.getObstacleDensity()).putInt(config.getSafeZoneWidth()).putInt(config.getSafeZoneHeight())
+                .putInt(config.getMaxMessages());
+        out.putLong(context.getSeed()).putInt(simulation.getStep()).putInt(context.getTotalMessages());
+
+        out.put((byte) mapRandom.length);
+        for (long word : mapRandom) {
+            out.putLong(word);
+        }
+        out.putInt(agents.size());
+        for (Agent agent : agents) {
+            out.putInt(agent.getIndex()); // The list is shuffled in place every step, so its order is state too
+        }
+        store.writeCheckpoint(out);
+
+        out.putInt(leaderboard.getLeaders().size());
+        for (Master leader : leaderboard.getLeaders()) {
+            out.putInt(masters.indexOf(leader));
+        }
+        out.putInt(masters.indexOf(leaderboard.getWinner())); // -1 if no winner yet
+        return out.flip();
+    }
+
+    /**
+     * Rebuilds the simulation saved in a checkpoint. The simulation has no listener, journal, metrics, other than
+     * the default scheduler or alternative step set, those are the caller's to add back.
+     */
+    public static Simulation decode(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a checkpoint");
+            }
+            byte version = in.get();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Checkpoint version " + version + " is not supported");
+            }
+            int width = in.getInt();
+            int height = in.getInt();
+            int agentsPerGroup = in.getInt();
+            int initialEp = in.getInt();
+            int maxSteps = in.getInt();
+            RNGFactory.Kind rngKind = RNGFactory.Kind.values()[in.get()];
+            byte mapFlags = in.get(); // Bit 0: chunked map, bit 1: flow field navigation
+            boolean v2 = version >= 2;
+            double obstacleDensity = v2 ? in.getDouble() : SimulationConfig.DEFAULT_OBSTACLE_DENSITY;
+            int safeZoneWidth = v2 ? in.getInt() : SimulationConfig.DEFAULT_SAFE_ZONE_WIDTH;
+            int safeZoneHeight = v2 ? in.getInt() : SimulationConfig.DEFAULT_SAFE_ZONE_HEIGHT;
+            int maxMessages = v2 ? in.getInt() : SimulationConfig.DEFAULT_MAX_MESSAGES;
+            SimulationConfig config = new SimulationConfig(width, height, agentsPerGroup, initialEp, maxSteps, rngKind,
+                    (mapFlags & 1) != 0, (mapFlags & 2) != 0, obstacleDensity, safeZoneWidth, safeZoneHeight, maxMessages);
+            long seed = in.getLong();
+            int step = in.getInt();
+            int totalMessages = in.getInt();
+
+            Simulation simulation = new Simulation(new SimulationContext(config, seed)); // Same world and agents as the original at step 0
+            SimulationContext context = simulation.getContext();
+            if (context.getTotalMessages() != totalMessages) {
+                throw new IOException("Checkpoint has " + totalMessages + " messages, a new run of its config "
+                        + context.getTotalMessages() + ": it was written by another version");
+            }
+            Map map = simulation.getMap();
+            long[] mapRandom = new long[in.get()];
+            for (int i = 0; i < mapRandom.length; i++) {
+                mapRandom[i] = in.getLong();
+            }
+            map.getRandom().setState(mapRandom);
+
+            AgentStore store = context.getAgentStore();
+            int agentCount = in.getInt();
+            if (agentCount != simulation.getAgents().size()) {
+                throw new IOException("Checkpoint has " + agentCount + " agents, its config " + simulation.getAgents().size());
+            }
+            List<Agent> order = new ArrayList<>(agentCount);
+            for (int i = 0; i < agentCount; i++) {
+                order.add(store.getView(in.getInt()));
+            }
+            for (int i = 0; i < store.size(); i++) {
+                Agent agent = store.getView(i);
+                if (map.getAgentAt(agent.getX(), agent.getY()) == agent) {
+                    map.removeAgent(agent.getX(), agent.getY()); // Initial positions
+                }
+            }
+            store.readCheckpoint(in);
+            for (int i = 0; i < store.size(); i++) {
+                Agent agent = store.getView(i);
+                if (agent instanceof Master || agent.getEp() > 0) {
+                    map.placeAgent(agent);
+                } else { // Died where it stands, see Agent.becomeObstacle
+                    map.addDeadAgent(agent.getX(), agent.getY(), agent.getGroup());
+                    map.addObstacle(agent.getX(), agent.getY());
+                }
+            }
+            map.updateFlowFields();
+
+            Leaderboard leaderboard = simulation.getLeaderboard();
+            List<Master> masters = leaderboard.getMasters();
+            List<Master> leaders = new ArrayList<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                leaders.add(masters.get(in.getInt()));
+            }
+            int winner = in.getInt();
+            leaderboard.restore(leaders, winner < 0 ? null : masters.get(winner));
+            simulation.restore(step, order);
+            return simulation;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt checkpoint", e);
+        }
+    }
+
+    /**
+     * Writes a checkpoint through a FileChannel, next to the file first and then moved over it, so a crash
+     * while writing leaves the previous checkpoint intact.
+     */
+    public static void write(ByteBuffer checkpoint, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer data = checkpoint.duplicate();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void write(Simulation simulation, Path file) throws IOException {
+        write(encode(simulation), file);
+    }
+
+    /**
+     * Restores the simulation saved in a checkpoint file, read through a memory mapping.
+     */
+    public static Simulation read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(data);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package polymorphicSimulation.simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Saves a {@link Checkpoint} of a simulation every interval steps, once added with Simulation.addStepObserver.
+ * <p>
+ * The state is copied on the simulation thread, which is only as long as copying the agents' arrays and
+ * messages. Writing it to disk happens on a background thread. If the previous checkpoint is still being
+ * written when the next one is due, the new one waits for the writer rather than making the simulation wait,
+ * and a newer one replaces it while it waits: the file always ends up holding the last checkpoint due.
+ */
+public class Checkpointer implements StepObserver, AutoCloseable {
+    private final Path file;
+    private final int interval;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Shared with the writer thread, guarded by this
+    private ByteBuffer due = null;      // Checkpoint waiting for the writer
+    private boolean writing = false;    // The writer is busy, and takes due once done
+    private Exception failure = null;   // First failed write, no checkpoint is written after it
+    private int written = 0;
+    private int superseded = 0;
+
+    /**
+     * @param file     the checkpoint, replaced by every new one
+     * @param interval steps between two checkpoints
+     */
+    public Checkpointer(Path file, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1 step, got " + interval);
+        }
+        this.file = file;
+        this.interval = interval;
+    }
+
+    /**
+     * @throws UncheckedIOException if writing a previous checkpoint failed
+     */
+    @Override
+    public void afterStep(Simulation simulation) {
+        if (simulation.getStep() % interval != 0) {
+            return;
+        }
+        synchronized (this) {
+            throwFailure();
+        }
+        ByteBuffer checkpoint = Checkpoint.encode(simulation);
+        synchronized (this) {
+            if (due != null) {
+                superseded++; // Disk slower than interval steps, only the newest checkpoint waits
+            }
+            due = checkpoint;
+            if (writing) {
+                return;
+            }
+            writing = true;
+        }
+        writer.execute(this::writeDue);
+    }
+
+    /**
+     * @return number of checkpoints written so far
+     */
+    public synchronized int getWritten() {
+        return written;
+    }
+
+    /**
+     * @return number of checkpoints replaced by a newer one while waiting for the writer
+     */
+    public synchronized int getSuperseded() {
+        return superseded;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the checkpoint waiting for the writer, if any, and stops the writer thread.
+     *
+     * @throws IOException if writing a checkpoint failed
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close(); // Waits for the writer, which takes the last checkpoint due before it stops
+        synchronized (this) {
+            try {
+                throwFailure();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private void writeDue() { // Runs on the writer thread until no checkpoint is due
+        while (true) {
+            ByteBuffer checkpoint;
+            synchronized (this) {
+                checkpoint = due;
+                due = null;
+                if (checkpoint == null || failure != null) {
+                    writing = false;
+                    return;
+                }
+            }
+            try {
+                Checkpoint.write(checkpoint, file);
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    failure = e;
+                    writing = false;
+                }
+                return;
+            }
+            synchronized (this) {
+                written++;
+            }
+        }
+    }
+
+    private void throwFailure() { // Caller holds the lock
+        if (failure instanceof IOException io) {
+            throw new UncheckedIOException(io);
+        } else if (failure != null) {
+            throw new IllegalStateException("Writing a checkpoint failed", failure);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.utils.XoshiroRNG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs independent headless simulations in parallel on a work-stealing pool.
+ * <p>
+ * Every run gets its own SimulationContext, so runs share no state. Results are returned in seed
+ * order and depend only on the seeds, never on the number of threads or on scheduling.
+ */
+public class EnsembleRunner {
+    private final SimulationConfig config;
+    private final int parallelism;
+
+    public EnsembleRunner(SimulationConfig config) {
+        this(config, Runtime.getRuntime().availableProcessors());
+    }
+
+    public EnsembleRunner(SimulationConfig config, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.config = config;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs one simulation per seed, in parallel.
+     *
+     * @return the results, in the order of seeds
+     */
+    public List<SimulationResult> run(long[] seeds) {
+        List<ForkJoinTask<SimulationResult>> tasks = new ArrayList<>(seeds.length);
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            for (long seed : seeds) {
+                tasks.add(pool.submit(() -> runOne(config, seed)));
+            }
+            List<SimulationResult> results = new ArrayList<>(seeds.length);
+            for (ForkJoinTask<SimulationResult> task : tasks) {
+                results.add(task.join()); // Rethrows the exception of a failed run
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Runs an ensemble of runs simulations whose seeds are derived from ensembleSeed,
+     * so the whole ensemble is reproduced from a single number.
+     */
+    public List<SimulationResult> run(int runs, long ensembleSeed) {
+        return run(deriveSeeds(runs, ensembleSeed));
+    }
+
+    /**
+     * @return runs distinct seeds derived from ensembleSeed
+     */
+    public static long[] deriveSeeds(int runs, long ensembleSeed) {
+        long[] seeds = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            seeds[i] = XoshiroRNG.splitMix64(ensembleSeed + (i + 1) * 0x9E3779B97F4A7C15L);
+        }
+        return seeds;
+    }
+
+    /**
+     * Runs a complete simulation without listeners in the calling thread.
+     */
+    public static SimulationResult runOne(SimulationConfig config, long seed) {
+        return new Simulation(new SimulationContext(config, seed)).run();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
@@ -0,0 +1,264 @@
+package polymorphicSimulation.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs every point of a grid of configs, replications headless runs per point, in parallel on a work-stealing pool,
+ * and writes one CSV row of aggregates per point as soon as its last run finishes.
+ * <p>
+ * Each varied parameter takes a list of values, the grid is every combination of them, the other parameters come
+ * from the base config. Every point is run with the same replication seeds, derived from the sweep seed, so two
+ * points differ by their parameters rather than by their luck, and a sweep is reproduced from its seed. Rows come
+ * in the order points complete, the point column gives their grid order; a row's values never depend on the
+ * number of threads.
+ */
+public class ParameterSweep {
+    /**
+     * The config values a sweep can vary.
+     */
+    public enum Parameter {
+        MAP_WIDTH, MAP_HEIGHT, AGENTS_PER_GROUP, INITIAL_EP, MAX_STEPS, OBSTACLE_DENSITY, SAFE_ZONE_WIDTH, SAFE_ZONE_HEIGHT, MAX_MESSAGES;
+
+        String getColumn() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        String format(double value) {
+            return this == OBSTACLE_DENSITY ? Double.toString(value) : Integer.toString((int) value);
+        }
+    }
+
+    private final SimulationConfig base;
+    private final int replications;
+    private final int parallelism;
+    private final List<Parameter> parameters = new ArrayList<>();
+    private final List<double[]> values = new ArrayList<>();
+
+    public ParameterSweep(SimulationConfig base, int replications) {
+        this(base, replications, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param base         config of every point, apart from the varied parameters
+     * @param replications runs per point
+     */
+    public ParameterSweep(SimulationConfig base, int replications, int parallelism) {
+        if (replications < 1) {
+            throw new IllegalArgumentException("A sweep needs at least 1 replication per point, got " + replications);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.base = base;
+        this.replications = replications;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Adds a parameter to the grid. Integer parameters are truncated.
+     *
+     * @return this sweep
+     */
+    public ParameterSweep vary(Parameter parameter, double... parameterValues) {
+        if (parameters.contains(parameter)) {
+            throw new IllegalArgumentException(parameter + " is already varied");
+        }
+        if (parameterValues.length == 0) {
+            throw new IllegalArgumentException(parameter + " needs at least one value");
+        }
+        parameters.add(parameter);
+        values.add(parameterValues.clone());
+        return this;
+    }
+
+    /**
+     * Computed in decimal, so 0.1:0.3:0.1 gives 0.1, 0.2 and 0.3 rather than 0.30000000000000004.
+     *
+     * @return from, from + step, ... up to to included
+     */
+    public static double[] range(double from, double to, double step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Range step must be positive, got " + step);
+        }
+        BigDecimal first = BigDecimal.valueOf(from);
+        BigDecimal increment = BigDecimal.valueOf(step);
+        int count = BigDecimal.valueOf(to).subtract(first).divide(increment, 0, RoundingMode.FLOOR).intValueExact() + 1;
+        double[] range = new double[Math.max(0, count)];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = first.add(increment.multiply(BigDecimal.valueOf(i))).doubleValue();
+        }
+        return range;
+    }
+
+    /**
+     * @return number of points of the grid
+     */
+    public int getPointCount() {
+        int count = 1;
+        for (double[] parameterValues : values) {
+            count = Math.multiplyExact(count, parameterValues.length);
+        }
+        return count;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Runs the sweep and writes its results to csv, replaced if it exists. Every point's config is built before
+     * the first run, so an invalid combination fails the sweep at once.
+     *
+     * @return number of points written
+     * @throws IllegalArgumentException if a point of the grid is not a valid config
+     */
+    public int run(long sweepSeed, Path csv) throws IOException {
+        int pointCount = getPointCount();
+        double[][] points = new double[pointCount][];
+        SimulationConfig[] configs = new SimulationConfig[pointCount];
+        for (int point = 0; point < pointCount; point++) {
+            points[point] = getPoint(point);
+            configs[point] = getConfig(points[point]);
+        }
+        long[] seeds = EnsembleRunner.deriveSeeds(replications, sweepSeed);
+
+        try (BufferedWriter out = Files.newBufferedWriter(csv); ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            out.write(getHeader());
+            out.newLine();
+            out.flush();
+            PointStats[] stats = new PointStats[pointCount];
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(pointCount * replications);
+            for (int point = 0; point < pointCount; point++) { // Grid order, so the first points complete first
+                stats[point] = new PointStats();
+                for (long seed : seeds) {
+                    int index = point;
+                    tasks.add(pool.submit(() -> {
+                        SimulationResult result = EnsembleRunner.runOne(configs[index], seed);
+                        if (stats[index].add(result, replications)) {
+                            writeRow(out, index, points[index], stats[index]);
+                        }
+                    }));
+                }
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join(); // Rethrows the exception of a failed run or write
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return pointCount;
+    }
+
+    /**
+     * @return the values of the point with the given grid index, the last parameter varying fastest
+     */
+    private double[] getPoint(int index) {
+        double[] point = new double[parameters.size()];
+        for (int i = point.length - 1; i >= 0; i--) {
+            double[] parameterValues = values.get(i);
+            point[i] = parameterValues[index % parameterValues.length];
+            index /= parameterValues.length;
+        }
+        return point;
+    }
+
+    private SimulationConfig getConfig(double[] point) { // Built at once: one parameter alone may not fit the base, e.g. the map size
+        SimulationConfig.Builder config = base.toBuilder();
+        for (int i = 0; i < point.length; i++) {
+            double value = point[i];
+            switch (parameters.get(i)) {
+                case MAP_WIDTH -> config.mapWidth((int) value);
+                case MAP_HEIGHT -> config.mapHeight((int) value);
+                case AGENTS_PER_GROUP -> config.agentsPerGroup((int) value);
+                case INITIAL_EP -> config.initialEp((int) value);
+                case MAX_STEPS -> config.maxSteps((int) value);
+                case OBSTACLE_DENSITY -> config.obstacleDensity(value);
+                case SAFE_ZONE_WIDTH -> config.safeZoneWidth((int) value);
+                case SAFE_ZONE_HEIGHT -> config.safeZoneHeight((int) value);
+                case MAX_MESSAGES -> config.maxMessages((int) value);
+            }
+        }
+        return config.build();
+    }
+
+    private String getHeader() {
+        StringBuilder header = new StringBuilder("point");
+        for (Parameter parameter : parameters) {
+            header.append(',').append(parameter.getColumn());
+        }
+        header.append(",runs");
+        for (String group : Simulation.GROUPS) {
+            header.append(",win_rate_").append(group.toLowerCase(Locale.ROOT));
+        }
+        return header.append(",no_winner_rate,all_collected_rate,mean_steps,mean_deaths").toString();
+    }
+
+    private void writeRow(BufferedWriter out, int index, double[] point, PointStats stats) {
+        StringBuilder row = new StringBuilder().append(index);
+        for (int i = 0; i < point.length; i++) {
+            row.append(',').append(parameters.get(i).format(point[i]));
+        }
+        row.append(',').append(stats.runs);
+        for (int wins : stats.wins) {
+            row.append(',').append(rate(wins, stats.runs));
+        }
+        row.append(',').append(rate(stats.noWinner, stats.runs))
+                .append(',').append(rate(stats.allCollected, stats.runs))
+                .append(',').append(rate(stats.steps, stats.runs))
+                .append(',').append(rate(stats.deaths, stats.runs));
+        synchronized (out) {
+            try {
+                out.write(row.toString());
+                out.newLine();
+                out.flush(); // Readable while the sweep goes on
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static String rate(long count, int runs) {
+        return String.format(Locale.ROOT, "%.4f", (double) count / runs);
+    }
+
+    /**
+     * Totals of the runs of one point finished so far.
+     */
+    private static class PointStats {
+        private int runs = 0;
+        private final int[] wins = new int[Simulation.GROUPS.length];
+        private int noWinner = 0; // Ties and runs where no master collected anything
+        private int allCollected = 0;
+        private long steps = 0;
+        private long deaths = 0;
+
+        /**
+         * @return true if this was the last run of the point
+         */
+        synchronized boolean add(SimulationResult result, int replications) {
+            String winner = result.getWinner();
+            if (winner == null) {
+                noWinner++;
+            } else {
+                wins[List.of(Simulation.GROUPS).indexOf(winner)]++;
+            }
+            if (result.isAllMessagesCollected()) {
+                allCollected++;
+            }
+            steps += result.getSteps();
+            deaths += result.getDeaths();
+            return ++runs == replications;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.events.EventLevel;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Moves the agents of a step in parallel, with the map split into horizontal stripes.
+ * <p>
+ * A move only touches tiles, and agents on tiles, at most {@link Agent#MAX_MOVE_DISTANCE} rows away from
+ * where the agent starts. By starting position, each agent is handled in one of three phases:
+ * <ol>
+ *     <li>agents whose reach lies inside one stripe: the stripes run in parallel;</li>
+ *     <li>agents whose reach crosses the boundary between two stripes: the boundaries run in parallel,
+ *     stripes are high enough that the reaches of two boundaries never share a row;</li>
+ *     <li>agents that could reach a SafeZone or a master: in order on the calling thread, because they
+ *     update the masters and the leaderboard shared by the whole map.</li>
+ * </ol>
+ * Within a stripe, a boundary or the last phase, agents move in the order given to {@link #moveAll(List)}.
+ * The outcome depends only on that order and on the stripe height, never on the number of threads.
+ * <p>
+ * Listeners and journals are not thread safe: when the map has a listener or the run is journaled,
+ * the same phases run on the calling thread, which gives the same outcome.
+ */
+public class PartitionedStep {
+    public static final int DEFAULT_STRIPE_HEIGHT = 32;
+    private static final int REACH = Agent.MAX_MOVE_DISTANCE;
+
+    private final Map map;
+    private final int stripeHeight;
+    private final ForkJoinPool pool;
+    private final List<List<Agent>> stripes = new ArrayList<>();
+    private final List<List<Agent>> boundaries = new ArrayList<>(); // Boundary i lies between stripes i and i + 1
+    private final List<Agent> shared = new ArrayList<>();
+
+    public PartitionedStep(Map map, ForkJoinPool pool) {
+        this(map, DEFAULT_STRIPE_HEIGHT, pool);
+    }
+
+    public PartitionedStep(Map map, int stripeHeight, ForkJoinPool pool) {
+        if (stripeHeight < 4 * REACH) {
+            throw new IllegalArgumentException("Stripes must be at least " + (4 * REACH) + " rows high, got " + stripeHeight);
+        }
+        this.map = map;
+        this.stripeHeight = stripeHeight;
+        this.pool = pool;
+        int stripeCount = (map.getHeight() + stripeHeight - 1) / stripeHeight;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(new ArrayList<>());
+            if (i > 0) {
+                boundaries.add(new ArrayList<>());
+            }
+        }
+    }
+
+    /**
+     * Moves every agent once.
+     */
+    public void moveAll(List<Agent> agents) {
+        partition(agents);
+        boolean parallel = !map.getEvents().isEnabled(EventLevel.INFO) && map.getContext().getJournal() == null;
+
+        runPhase(stripes, parallel);
+        runPhase(boundaries, parallel);
+        moveEach(shared);
+    }
+
+    private void partition(List<Agent> agents) {
+        for (List<Agent> stripe : stripes) {
+            stripe.clear();
+        }
+        for (List<Agent> boundary : boundaries) {
+            boundary.clear();
+        }
+        shared.clear();
+
+        int lastRow = map.getHeight() - 1;
+        for (Agent agent : agents) {
+            int x = agent.getX();
+            int y = agent.getY();
+            if (map.isNearSafeZone(x, y, REACH)) {
+                shared.add(agent);
+                continue;
+            }
+            int firstStripe = Math.max(0, y - REACH) / stripeHeight;
+            int lastStripe = Math.min(lastRow, y + REACH) / stripeHeight;
+            if (firstStripe == lastStripe) {
+                stripes.get(firstStripe).add(agent);
+            } else {
+                boundaries.get(firstStripe).add(agent); // Reach spans two stripes at most
+            }
+        }
+    }
+
+    private void runPhase(List<List<Agent>> groups, boolean parallel) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        if (parallel) {
+            pool.invoke(new MoveGroups(groups, 0, groups.size()));
+        } else {
+            for (List<Agent> group : groups) {
+                moveEach(group);
+            }
+        }
+    }
+
+    private void moveEach(List<Agent> agents) {
+        for (Agent agent : agents) {
+            agent.move(map);
+        }
+    }
+
+    /**
+     * Moves the agents of groups [from, to), splitting the range until a single group is left.
+     */
+    private class MoveGroups extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L; // Tasks are never serialized, hence the transient fields
+        private final transient List<List<Agent>> groups;
+        private final int from;
+        private final int to;
+
+        MoveGroups(List<List<Agent>> groups, int from, int to) {
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                moveEach(groups.get(from));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MoveGroups(groups, from, middle), new MoveGroups(groups, middle, to));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package polymorphicSimulation.simulation;
+
+import java.io.Serial;
+
+/**
+ * Thrown by {@link RunReplayer} when a replayed run stops matching its recording.
+ */
+public class ReplayDivergenceException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final int step;
+
+    public ReplayDivergenceException(int step, String message) {
+        super("Replay diverged at step " + step + ": " + message);
+        this.step = step;
+    }
+
+    public int getStep() {
+        return step;
+    }
+}
@@ -0,0 +1,18 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.utils.DecisionSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Follows a run step by step: receives every random decision, then a checksum of the world at the end of each step.
+ */
+public interface RunJournal extends DecisionSink, Closeable {
+
+    /**
+     * @param step      the step that just ended, starting at 1
+     * @param stateHash checksum of the agents' state after the step
+     */
+    void endStep(int step, long stateHash) throws IOException;
+}
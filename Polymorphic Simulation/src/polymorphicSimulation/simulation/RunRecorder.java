@@ -0,0 +1,68 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes a compact binary recording of a run.
+ * <p>
+ * Layout: header {@code int MAGIC, byte VERSION, long seed, byte rngKind}, then one block per step:
+ * {@code varint step, varint decisionCount, decisionCount x (varint bound, varint value), long stateHash}.
+ * Bounds and values are small non-negative ints, so most decisions take two bytes.
+ */
+public class RunRecorder implements RunJournal {
+    static final int MAGIC = 0x4D415352; // "MASR"
+    static final byte VERSION = 2; // Version 1 games also shuffled and moved the dead agents, they no longer replay
+
+    private final DataOutputStream out;
+    private int[] decisions = new int[256]; // bound, value pairs of the current step
+    private int decisionCount = 0;
+
+    public RunRecorder(Path file, long seed, RNGFactory.Kind kind) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        out.writeByte(kind.ordinal());
+    }
+
+    @Override
+    public void onDecision(int bound, int value) {
+        if (2 * decisionCount + 2 > decisions.length) {
+            decisions = Arrays.copyOf(decisions, decisions.length * 2);
+        }
+        decisions[2 * decisionCount] = bound;
+        decisions[2 * decisionCount + 1] = value;
+        decisionCount++;
+    }
+
+    @Override
+    public void endStep(int step, long stateHash) throws IOException {
+        writeVarInt(out, step);
+        writeVarInt(out, decisionCount);
+        for (int i = 0; i < 2 * decisionCount; i++) {
+            writeVarInt(out, decisions[i]);
+        }
+        out.writeLong(stateHash);
+        decisionCount = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
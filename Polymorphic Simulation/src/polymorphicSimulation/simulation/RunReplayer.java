@@ -0,0 +1,126 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Checks a re-run of a recorded game against its {@link RunRecorder} file, decision by decision and step by step.
+ * Throws {@link ReplayDivergenceException} at the first difference.
+ */
+public class RunReplayer implements RunJournal {
+    private final DataInputStream in;
+    private final long seed;
+    private final RNGFactory.Kind kind;
+
+    private int recordedStep = -1; // -1 once the recording is exhausted
+    private int[] decisions = new int[256];
+    private int recordedCount;
+    private long recordedHash;
+    private int decisionIndex;
+
+    public RunReplayer(Path file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        if (in.readInt() != RunRecorder.MAGIC) {
+            in.close();
+            throw new IOException("Not a run recording: " + file);
+        }
+        byte version = in.readByte();
+        if (version != RunRecorder.VERSION) {
+            in.close();
+            throw new IOException("Recording " + file + " has version " + version + ", only version " + RunRecorder.VERSION + " replays");
+        }
+        this.seed = in.readLong();
+        this.kind = RNGFactory.Kind.values()[in.readByte()];
+        readStep();
+    }
+
+    /**
+     * @return the master seed the recorded run was started with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public RNGFactory.Kind getKind() {
+        return kind;
+    }
+
+    @Override
+    public void onDecision(int bound, int value) {
+        int step = recordedStep;
+        if (step < 0) {
+            throw new ReplayDivergenceException(step, "random decision after the end of the recording");
+        }
+        if (decisionIndex >= recordedCount) {
+            throw new ReplayDivergenceException(step, "more than the " + recordedCount + " recorded decisions");
+        }
+        int expectedBound = decisions[2 * decisionIndex];
+        int expectedValue = decisions[2 * decisionIndex + 1];
+        if (bound != expectedBound || value != expectedValue) {
+            throw new ReplayDivergenceException(step, "decision " + decisionIndex + " was nextInt(" + bound + ") = " + value
+                    + ", recorded nextInt(" + expectedBound + ") = " + expectedValue);
+        }
+        decisionIndex++;
+    }
+
+    @Override
+    public void endStep(int step, long stateHash) throws IOException {
+        if (recordedStep != step) {
+            throw new ReplayDivergenceException(step, "recording has step " + recordedStep + " here");
+        }
+        if (decisionIndex != recordedCount) {
+            throw new ReplayDivergenceException(step, decisionIndex + " decisions made, " + recordedCount + " recorded");
+        }
+        if (stateHash != recordedHash) {
+            throw new ReplayDivergenceException(step, "world state differs from the recording");
+        }
+        readStep();
+    }
+
+    /**
+     * @return true if every recorded step has been replayed
+     */
+    public boolean isFinished() {
+        return recordedStep < 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readStep() throws IOException {
+        try {
+            recordedStep = readVarInt(in);
+        } catch (EOFException e) {
+            recordedStep = -1;
+            return;
+        }
+        recordedCount = readVarInt(in);
+        if (2 * recordedCount > decisions.length) {
+            decisions = new int[2 * recordedCount];
+        }
+        for (int i = 0; i < 2 * recordedCount; i++) {
+            decisions[i] = readVarInt(in);
+        }
+        recordedHash = in.readLong();
+        decisionIndex = 0;
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.utils.SimulationRNG;
+
+import java.util.List;
+
+/**
+ * Decides how the live agents take their turns during a step, see Simulation.setScheduler.
+ * <p>
+ * The live agents are the first count entries of the simulation's agents list, the dead ones follow and must
+ * stay where they are. A scheduler may reorder the live ones in place, drawing only from the random stream
+ * it is given, the seeded map stream, so a run stays reproducible from its seed.
+ */
+public interface Scheduler {
+
+    /**
+     * Puts the live agents in the order they take their turns in. Timed as the shuffle phase.
+     */
+    void order(List<Agent> agents, int count, SimulationRNG random);
+
+    /**
+     * Moves each live agent once, in the order left by {@link #order}. Timed as the move phase.
+     */
+    void moveAll(Simulation simulation, List<Agent> agents, int count);
+
+    /**
+     * @return agents move one after the other in a new random order every step, each seeing the map as left by the previous ones
+     */
+    static Scheduler randomSequential() {
+        return new SequentialScheduler(StepOrder.RANDOM);
+    }
+
+    /**
+     * @return agents move one after the other, the lowest EP first, see {@link StepOrder#LOWEST_EP_FIRST}
+     */
+    static Scheduler lowestEpFirst() {
+        return new SequentialScheduler(StepOrder.LOWEST_EP_FIRST);
+    }
+}
@@ -0,0 +1,29 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.utils.SimulationRNG;
+
+import java.util.List;
+
+/**
+ * Agents move one after the other, in the order given by a {@link StepOrder}. Each move sees the map as the
+ * previous moves left it. Moves run through the simulation's data oriented or partitioned step when one is set.
+ * {@link Scheduler#randomSequential()} is the default of every simulation.
+ */
+public class SequentialScheduler implements Scheduler {
+    private final StepOrder stepOrder;
+
+    public SequentialScheduler(StepOrder stepOrder) {
+        this.stepOrder = stepOrder;
+    }
+
+    @Override
+    public void order(List<Agent> agents, int count, SimulationRNG random) {
+        stepOrder.order(agents, count, random);
+    }
+
+    @Override
+    public void moveAll(Simulation simulation, List<Agent> agents, int count) {
+        simulation.moveInOrder(agents, count);
+    }
+}
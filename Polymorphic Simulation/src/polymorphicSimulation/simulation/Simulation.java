@@ -0,0 +1,378 @@
+package polymorphicSimulation.simulation;
+
+import jdk.jfr.EventType;
+import polymorphicSimulation.agents.*;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.environment.Point;
+import polymorphicSimulation.jfr.JfrEventListener;
+import polymorphicSimulation.jfr.StepEvent;
+import polymorphicSimulation.metrics.SimulationMetrics;
+import polymorphicSimulation.utils.Leaderboard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * One game: places masters and agents on a map, then advances it step by step.
+ * Rendering, prompts and status output are left to the caller, see Main.
+ */
+public class Simulation {
+    public static final String[] GROUPS = {"Human", "Elf", "Orc", "Goblin"};
+    public static final String[] ALLIANCES = {"LightSide", "LightSide", "DarkSide", "DarkSide"}; // Alliances corresponding to the groups
+    private static final EventType STEP_EVENT = EventType.getEventType(StepEvent.class); // A StepEvent is only created while a recording wants it
+
+    private final SimulationContext context;
+    private final Map map;
+    private final List<Agent> agents;
+    private final Leaderboard leaderboard;
+    private final RunJournal journal;
+    private PartitionedStep partitionedStep = null; // Null: agents move one after the other
+    private MovementKernel kernel = null; // Non null: agents move through the AgentStore arrays
+    private SimulationMetrics metrics = null; // Null: no counting or timing
+    private final List<StepObserver> stepObservers = new ArrayList<>();
+    private final JfrEventListener jfrListener = new JfrEventListener(); // Subscribed only while a recording wants its events
+    private int[] order; // Slots of the live agents in the AgentStore, in the order they move, used with kernel
+    private Scheduler scheduler = Scheduler.randomSequential();
+    private int liveCount; // Every agent from this index on in the agents list is dead
+    private final List<Agent> died = new ArrayList<>(); // Reused by compactLiveAgents
+    private long deadHash = 17; // Journal hash of the agents behind the live ones, their state no longer changes
+    private int step = 0;
+
+    /**
+     * Creates the map and populates it, as configured by context.
+     */
+    public Simulation(SimulationContext context) {
+        this(new Map(context));
+    }
+
+    /**
+     * Populates a freshly generated map with the masters and agents configured by its context.
+     */
+    public Simulation(Map map) {
+        this.context = map.getContext();
+        this.map = map;
+        this.journal = context.getJournal();
+        SimulationConfig config = context.getConfig();
+        placeMasters(config.getInitialEp());
+        this.agents = createAgents(config.getAgentsPerGroup(), config.getInitialEp());
+        this.liveCount = agents.size();
+        map.releaseFreeTiles();
+        this.leaderboard = context.getLeaderboard();
+        leaderboard.setTotalMessages(context.getTotalMessages()); // All messages exist once the agents are created
+        context.getAgentStore().buildFlowFields(map); // Before the first step, which may run on several threads
+        endStep(); // Setup decisions: map generation and agent placement
+    }
+
+    private void placeMasters(int initialEp) {
+        for (int i = 0; i < GROUPS.length; i++) {
+            Point location = map.getSafeZoneLocation(GROUPS[i]);
+            Master master = context.getMasterInstance(GROUPS[i], location, initialEp, ALLIANCES[i]); // Pass alliance
+            map.placeAgent(master);
+        }
+    }
+
+    private List<Agent> createAgents(int agentsPerGroup, int initialEp) {
+        List<Agent> agents = new ArrayList<>();
+
+        for (int g = 0; g < GROUPS.length; g++) {
+            String group = GROUPS[g];
+            for (int i = 0; i < agentsPerGroup; i++) {
+                Point location = map.getRandomFreeTile(); // Free and outside the SafeZones
+
+                Agent agent = switch (group) {
+                    case "Human" -> new Human(context, "Human" + i, group, location, initialEp, ALLIANCES[g]);
+                    case "Elf" -> new Elf(context, "Elf" + i, group, location, initialEp, ALLIANCES[g]);
+                    case "Orc" -> new Orc(context, "Orc" + i, group, location, initialEp, ALLIANCES[g]);
+                    case "Goblin" -> new Goblin(context, "Goblin" + i, group, location, initialEp, ALLIANCES[g]);
+                    default -> throw new IllegalStateException("Unexpected value: " + group);
+                };
+
+                context.getAgentStore().register(agent);
+                map.placeAgent(agent);
+                agents.add(agent);
+            }
+        }
+        return agents;
+    }
+
+    /**
+     * Moves every live agent once, in the order of the scheduler.
+     *
+     * @return true if a master has collected all messages
+     */
+    public boolean step() {
+        jfrListener.update(context.getEvents()); // Follows the recordings started or stopped since the last step
+        StepEvent stepEvent = STEP_EVENT.isEnabled() ? new StepEvent() : null;
+        if (stepEvent != null) {
+            stepEvent.begin();
+        }
+        long start = startPhase();
+        int count = compactLiveAgents();
+        scheduler.order(agents, count, map.getRandom());
+        start = endPhase(SimulationMetrics.Phase.SHUFFLE, start);
+
+        scheduler.moveAll(this, agents, count);
+        map.updateFlowFields(); // Around the agents that died during the step
+        endPhase(SimulationMetrics.Phase.MOVE, start);
+        step++;
+        if (stepEvent != null && stepEvent.shouldCommit()) {
+            stepEvent.seed = context.getSeed();
+            stepEvent.step = step;
+            stepEvent.liveAgents = countLiveAgents();
+            stepEvent.commit();
+        }
+        endStep();
+        if (metrics != null) {
+            metrics.endStep(step);
+        }
+        for (StepObserver observer : stepObservers) {
+            observer.afterStep(this);
+        }
+        return leaderboard.getWinner() != null;
+    }
+
+    /**
+     * Moves the first count agents of the list one after the other, in that order, through the partitioned or
+     * data oriented step if one is set. Used by a {@link SequentialScheduler}.
+     */
+    void moveInOrder(List<Agent> agents, int count) {
+        if (partitionedStep != null) {
+            partitionedStep.moveAll(count == agents.size() ? agents : agents.subList(0, count));
+        } else if (kernel != null) {
+            for (int i = 0; i < count; i++) {
+                order[i] = agents.get(i).getIndex();
+            }
+            kernel.moveAll(order, count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                agents.get(i).move(map);
+            }
+        }
+    }
+
+    private int countLiveAgents() {
+        int live = 0;
+        for (int i = 0; i < liveCount; i++) {
+            if (agents.get(i).getEp() > 0) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Moves the agents that died since the last step behind the live ones, keeping the order of both,
+     * so the step costs as much as there are live agents.
+     *
+     * @return the number of live agents, first in the agents list
+     */
+    private int compactLiveAgents() {
+        int live = 0;
+        for (int i = 0; i < liveCount; i++) {
+            Agent agent = agents.get(i);
+            if (agent.getEp() > 0) {
+                agents.set(live++, agent);
+            } else {
+                died.add(agent);
+            }
+        }
+        for (int i = 0; i < died.size(); i++) {
+            agents.set(live + i, died.get(i));
+            deadHash = hash(deadHash, died.get(i));
+        }
+        died.clear();
+        liveCount = live;
+        return live;
+    }
+
+    private long startPhase() {
+        return metrics == null ? 0 : metrics.startPhase();
+    }
+
+    /**
+     * @return the start of the next phase
+     */
+    private long endPhase(SimulationMetrics.Phase phase, long start) {
+        if (metrics == null) {
+            return 0;
+        }
+        metrics.endPhase(phase, start);
+        return metrics.startPhase();
+    }
+
+    /**
+     * Counts the events of the following steps and times their shuffle and move phases, or stops if null.
+     * The metrics listen at INFO level, so a partitioned step then moves the agents on the calling thread.
+     */
+    public void setMetrics(SimulationMetrics metrics) {
+        if (this.metrics != null) {
+            context.getEvents().unsubscribe(this.metrics);
+        }
+        this.metrics = metrics;
+        if (metrics != null) {
+            context.getEvents().subscribe(metrics);
+        }
+    }
+
+    /**
+     * Calls the observer at the end of every following step, e.g. a {@link Checkpointer}.
+     */
+    public void addStepObserver(StepObserver observer) {
+        stepObservers.add(observer);
+        observer.attached(this);
+    }
+
+    public void removeStepObserver(StepObserver observer) {
+        if (stepObservers.remove(observer)) {
+            observer.detached(this);
+        }
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Moves the agents of each following step in parallel stripes of the map, or one after the other if null.
+     * The partitioned order gives different, still reproducible, games than the sequential one.
+     */
+    public void setPartitionedStep(PartitionedStep partitionedStep) {
+        this.partitionedStep = partitionedStep;
+    }
+
+    /**
+     * Lets the scheduler order and move the live agents from the next step on, or restores the default
+     * {@link Scheduler#randomSequential()} if null. Dead agents stay behind the live ones in the agents list
+     * and cost nothing.
+     */
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler == null ? Scheduler.randomSequential() : scheduler;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Moves the agents through the data oriented {@link MovementKernel} instead of calling each agent's move.
+     * The games are the same either way. Ignored while a partitioned step is set.
+     */
+    public void setDataOrientedStep(boolean enabled) {
+        if (!enabled) {
+            kernel = null;
+            return;
+        }
+        kernel = new MovementKernel(context.getAgentStore(), map);
+        order = new int[agents.size()];
+    }
+
+    /**
+     * Steps until a master collects all messages or the configured maximum number of steps has run.
+     */
+    public SimulationResult run() {
+        return run(context.getConfig().getMaxSteps());
+    }
+
+    /**
+     * Steps until a master collects all messages or maxSteps steps have run.
+     */
+    public SimulationResult run(int maxSteps) {
+        while (step < maxSteps) {
+            if (step()) {
+                break;
+            }
+        }
+        return getResult();
+    }
+
+    private void endStep() {
+        if (journal == null) {
+            return;
+        }
+        long hash = deadHash; // Only the live agents are hashed again, like only they move
+        for (int i = 0; i < liveCount; i++) {
+            hash = hash(hash, agents.get(i));
+        }
+        for (Master master : leaderboard.getMasters()) {
+            hash = 31 * hash + master.getMessageCount();
+        }
+        try {
+            journal.endStep(step, hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long hash(long hash, Agent agent) {
+        return 31 * (31 * (31 * (31 * hash + agent.getX()) + agent.getY()) + agent.getEp()) + agent.getMessageCount();
+    }
+
+    public SimulationResult getResult() {
+        java.util.Map<String, Integer> masterMessageCounts = new LinkedHashMap<>();
+        for (Master master : leaderboard.getMasters()) {
+            masterMessageCounts.put(master.group, master.getMessageCount());
+        }
+        int deaths = 0;
+        for (Agent agent : agents) {
+            if (agent.getEp() <= 0) {
+                deaths++;
+            }
+        }
+        return new SimulationResult(context.getSeed(), getWinningGroups(), leaderboard.getWinner() != null, step,
+                context.getTotalMessages(), deaths, masterMessageCounts);
+    }
+
+    /**
+     * @return the groups tied at the leading message count, in group order
+     */
+    public List<String> getWinningGroups() {
+        List<String> winningGroups = new ArrayList<>();
+        int maxMessages = leaderboard.getLeadingCount();
+        for (Master master : leaderboard.getMasters()) {
+            if (maxMessages > 0 && master.getMessageCount() == maxMessages) {
+                winningGroups.add(master.group);
+            }
+        }
+        return winningGroups;
+    }
+
+    public SimulationContext getContext() {
+        return context;
+    }
+
+    public Map getMap() {
+        return map;
+    }
+
+    public List<Agent> getAgents() {
+        return agents;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Puts the simulation at the given step, with the agents list in the given order. Used by Checkpoint once
+     * the agents, map and leaderboard are restored.
+     */
+    void restore(int step, List<Agent> order) {
+        this.step = step;
+        for (int i = 0; i < order.size(); i++) {
+            agents.set(i, order.get(i));
+        }
+        liveCount = agents.size(); // The next step sorts the dead out, in the order they died
+        deadHash = 17;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public long getSeed() {
+        return context.getSeed();
+    }
+}
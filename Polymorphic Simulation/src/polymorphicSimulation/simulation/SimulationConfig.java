@@ -0,0 +1,290 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.utils.RNGFactory;
+
+/**
+ * Parameters of a simulation run. Immutable, so one instance can be shared by every run of an ensemble.
+ */
+public class SimulationConfig {
+    public static final double DEFAULT_OBSTACLE_DENSITY = 0.04;
+    public static final int DEFAULT_SAFE_ZONE_WIDTH = 3;
+    public static final int DEFAULT_SAFE_ZONE_HEIGHT = 2;
+    public static final int DEFAULT_MAX_MESSAGES = 5;
+
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int agentsPerGroup;
+    private final int initialEp;
+    private final int maxSteps;
+    private final RNGFactory.Kind rngKind;
+    private final boolean chunkedMap;
+    private final boolean flowFieldNavigation;
+    private final double obstacleDensity;
+    private final int safeZoneWidth;
+    private final int safeZoneHeight;
+    private final int maxMessages;
+
+    /**
+     * @param agentsPerGroup number of agents created for each group, masters excluded
+     * @param maxSteps       steps after which a run without a winner stops
+     * @param rngKind        generator used for every random stream of the run
+     */
+    public SimulationConfig(int mapWidth, int mapHeight, int agentsPerGroup, int initialEp, int maxSteps, RNGFactory.Kind rngKind) {
+        this(mapWidth, mapHeight, agentsPerGroup, initialEp, maxSteps, rngKind, false, false,
+                DEFAULT_OBSTACLE_DENSITY, DEFAULT_SAFE_ZONE_WIDTH, DEFAULT_SAFE_ZONE_HEIGHT, DEFAULT_MAX_MESSAGES);
+    }
+
+    /**
+     * @param chunkedMap          store the map in chunks created on first touch, for huge sparsely populated maps
+     * @param flowFieldNavigation low EP agents head back along the shortest way around obstacles instead of straight
+     *                            at their master, see Map.getFlowField. Ignored with a chunked map
+     * @param obstacleDensity     share of the map's tiles turned into obstacles when the map is generated
+     * @param safeZoneWidth       tiles of each SafeZone along x, from its corner of the map
+     * @param safeZoneHeight      tiles of each SafeZone along y
+     * @param maxMessages         most messages an agent generates, each agent draws 1 to maxMessages
+     * @throws IllegalArgumentException if a value is out of its range
+     */
+    public SimulationConfig(int mapWidth, int mapHeight, int agentsPerGroup, int initialEp, int maxSteps, RNGFactory.Kind rngKind,
+                            boolean chunkedMap, boolean flowFieldNavigation, double obstacleDensity, int safeZoneWidth,
+                            int safeZoneHeight, int maxMessages) {
+        if (!(obstacleDensity >= 0 && obstacleDensity < 1)) {
+            throw new IllegalArgumentException("Obstacle density must be in [0, 1), got " + obstacleDensity);
+        }
+        if (safeZoneWidth < 1 || safeZoneHeight < 1 || 2 * safeZoneWidth > mapWidth || 2 * safeZoneHeight > mapHeight) {
+            throw new IllegalArgumentException("SafeZones of " + safeZoneWidth + "x" + safeZoneHeight + " don't fit in the corners of a "
+                    + mapWidth + "x" + mapHeight + " map");
+        }
+        if (maxMessages < 1) {
+            throw new IllegalArgumentException("Agents must generate at least 1 message, got " + maxMessages);
+        }
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.agentsPerGroup = agentsPerGroup;
+        this.initialEp = initialEp;
+        this.maxSteps = maxSteps;
+        this.rngKind = rngKind;
+        this.chunkedMap = chunkedMap;
+        this.flowFieldNavigation = flowFieldNavigation;
+        this.obstacleDensity = obstacleDensity;
+        this.safeZoneWidth = safeZoneWidth;
+        this.safeZoneHeight = safeZoneHeight;
+        this.maxMessages = maxMessages;
+    }
+
+    public SimulationConfig withRngKind(RNGFactory.Kind rngKind) {
+        return toBuilder().rngKind(rngKind).build();
+    }
+
+    public SimulationConfig withChunkedMap(boolean chunkedMap) {
+        return toBuilder().chunkedMap(chunkedMap).build();
+    }
+
+    public SimulationConfig withFlowFieldNavigation(boolean flowFieldNavigation) {
+        return toBuilder().flowFieldNavigation(flowFieldNavigation).build();
+    }
+
+    public SimulationConfig withMapSize(int mapWidth, int mapHeight) {
+        return toBuilder().mapSize(mapWidth, mapHeight).build();
+    }
+
+    public SimulationConfig withAgentsPerGroup(int agentsPerGroup) {
+        return toBuilder().agentsPerGroup(agentsPerGroup).build();
+    }
+
+    public SimulationConfig withInitialEp(int initialEp) {
+        return toBuilder().initialEp(initialEp).build();
+    }
+
+    public SimulationConfig withMaxSteps(int maxSteps) {
+        return toBuilder().maxSteps(maxSteps).build();
+    }
+
+    public SimulationConfig withObstacleDensity(double obstacleDensity) {
+        return toBuilder().obstacleDensity(obstacleDensity).build();
+    }
+
+    public SimulationConfig withSafeZoneSize(int safeZoneWidth, int safeZoneHeight) {
+        return toBuilder().safeZoneSize(safeZoneWidth, safeZoneHeight).build();
+    }
+
+    public SimulationConfig withMaxMessages(int maxMessages) {
+        return toBuilder().maxMessages(maxMessages).build();
+    }
+
+    /**
+     * @return a builder holding this config's values, to change several of them at once: a value may only be
+     * valid together with another one, e.g. the SafeZone size with the map size
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    public int getMapWidth() {
+        return mapWidth;
+    }
+
+    public int getMapHeight() {
+        return mapHeight;
+    }
+
+    public int getAgentsPerGroup() {
+        return agentsPerGroup;
+    }
+
+    public int getInitialEp() {
+        return initialEp;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    public RNGFactory.Kind getRngKind() {
+        return rngKind;
+    }
+
+    public boolean isChunkedMap() {
+        return chunkedMap;
+    }
+
+    public boolean isFlowFieldNavigation() {
+        return flowFieldNavigation;
+    }
+
+    public double getObstacleDensity() {
+        return obstacleDensity;
+    }
+
+    public int getSafeZoneWidth() {
+        return safeZoneWidth;
+    }
+
+    public int getSafeZoneHeight() {
+        return safeZoneHeight;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationConfig{map=" + mapWidth + "x" + mapHeight + ", agentsPerGroup=" + agentsPerGroup
+                + ", initialEp=" + initialEp + ", maxSteps=" + maxSteps + ", rngKind=" + rngKind + ", chunkedMap=" + chunkedMap
+                + ", flowFieldNavigation=" + flowFieldNavigation + ", obstacleDensity=" + obstacleDensity
+                + ", safeZone=" + safeZoneWidth + "x" + safeZoneHeight + ", maxMessages=" + maxMessages + "}";
+    }
+
+    /**
+     * Values of a config being changed, see {@link #toBuilder()}. Checked only by {@link #build()}.
+     */
+    public static class Builder {
+        private int mapWidth;
+        private int mapHeight;
+        private int agentsPerGroup;
+        private int initialEp;
+        private int maxSteps;
+        private RNGFactory.Kind rngKind;
+        private boolean chunkedMap;
+        private boolean flowFieldNavigation;
+        private double obstacleDensity;
+        private int safeZoneWidth;
+        private int safeZoneHeight;
+        private int maxMessages;
+
+        private Builder(SimulationConfig config) {
+            this.mapWidth = config.mapWidth;
+            this.mapHeight = config.mapHeight;
+            this.agentsPerGroup = config.agentsPerGroup;
+            this.initialEp = config.initialEp;
+            this.maxSteps = config.maxSteps;
+            this.rngKind = config.rngKind;
+            this.chunkedMap = config.chunkedMap;
+            this.flowFieldNavigation = config.flowFieldNavigation;
+            this.obstacleDensity = config.obstacleDensity;
+            this.safeZoneWidth = config.safeZoneWidth;
+            this.safeZoneHeight = config.safeZoneHeight;
+            this.maxMessages = config.maxMessages;
+        }
+
+        public Builder rngKind(RNGFactory.Kind rngKind) {
+            this.rngKind = rngKind;
+            return this;
+        }
+
+        public Builder chunkedMap(boolean chunkedMap) {
+            this.chunkedMap = chunkedMap;
+            return this;
+        }
+
+        public Builder flowFieldNavigation(boolean flowFieldNavigation) {
+            this.flowFieldNavigation = flowFieldNavigation;
+            return this;
+        }
+
+        public Builder mapSize(int mapWidth, int mapHeight) {
+            this.mapWidth = mapWidth;
+            this.mapHeight = mapHeight;
+            return this;
+        }
+
+        public Builder mapWidth(int mapWidth) {
+            this.mapWidth = mapWidth;
+            return this;
+        }
+
+        public Builder mapHeight(int mapHeight) {
+            this.mapHeight = mapHeight;
+            return this;
+        }
+
+        public Builder agentsPerGroup(int agentsPerGroup) {
+            this.agentsPerGroup = agentsPerGroup;
+            return this;
+        }
+
+        public Builder initialEp(int initialEp) {
+            this.initialEp = initialEp;
+            return this;
+        }
+
+        public Builder maxSteps(int maxSteps) {
+            this.maxSteps = maxSteps;
+            return this;
+        }
+
+        public Builder obstacleDensity(double obstacleDensity) {
+            this.obstacleDensity = obstacleDensity;
+            return this;
+        }
+
+        public Builder safeZoneSize(int safeZoneWidth, int safeZoneHeight) {
+            this.safeZoneWidth = safeZoneWidth;
+            this.safeZoneHeight = safeZoneHeight;
+            return this;
+        }
+
+        public Builder safeZoneWidth(int safeZoneWidth) {
+            this.safeZoneWidth = safeZoneWidth;
+            return this;
+        }
+
+        public Builder safeZoneHeight(int safeZoneHeight) {
+            this.safeZoneHeight = safeZoneHeight;
+            return this;
+        }
+
+        public Builder maxMessages(int maxMessages) {
+            this.maxMessages = maxMessages;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a value is out of its range
+         */
+        public SimulationConfig build() {
+            return new SimulationConfig(mapWidth, mapHeight, agentsPerGroup, initialEp, maxSteps, rngKind, chunkedMap,
+                    flowFieldNavigation, obstacleDensity, safeZoneWidth, safeZoneHeight, maxMessages);
+        }
+    }
+}
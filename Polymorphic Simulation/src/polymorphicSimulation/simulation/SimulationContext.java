@@ -0,0 +1,118 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.AgentStore;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.environment.Point;
+import polymorphicSimulation.events.SimulationEvents;
+import polymorphicSimulation.utils.Leaderboard;
+import polymorphicSimulation.utils.RNGFactory;
+import polymorphicSimulation.utils.SimulationRNG;
+import polymorphicSimulation.utils.XoshiroRNG;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Everything one simulation run owns: its configuration, its masters and leaderboard, the agents' state,
+ * the message id allocator and the random streams, all derived from the run's seed.
+ * <p>
+ * Nothing is shared between contexts, so any number of runs can execute concurrently in one JVM.
+ * <p>
+ * Within a run, the parallel steps (PartitionedStep, SimultaneousScheduler, ActorScheduler) move or plan
+ * agents on several threads at once. Each agent then only draws from its own random stream and writes its
+ * own slot of the agent store, which is safe. {@link #newRandom()}, {@link #newSeed()},
+ * {@link #nextMessageId()} and {@link #getMasterInstance} are not synchronized and are only called while the
+ * run is set up or on the thread driving it. So are the masters, the leaderboard, the events and the journal.
+ */
+public class SimulationContext {
+    private final SimulationConfig config;
+    private final long seed;
+    private final SimulationEvents events;
+    private final RunJournal journal; // May be null
+    private final Map<String, Master> masterInstances = new HashMap<>(); // One master per group
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final AgentStore agentStore = new AgentStore();
+    private long streamCounter = 0;
+    private int totalMessages = 0; // Next message id, and the number of messages created so far
+
+    public SimulationContext(SimulationConfig config, long seed) {
+        this(config, seed, new SimulationEvents(), null);
+    }
+
+    /**
+     * @param events  subscribe listeners before the map is created to see the generation events
+     * @param journal receives every random decision and a state checksum per step (step 0 is the setup), may be null
+     */
+    public SimulationContext(SimulationConfig config, long seed, SimulationEvents events, RunJournal journal) {
+        this.config = config;
+        this.seed = seed;
+        this.events = events;
+        this.journal = journal;
+    }
+
+    /**
+     * Creates the next random stream of the run. Streams are derived from the seed in creation order,
+     * so a run that creates its map and agents in the same order is reproduced exactly.
+     */
+    public SimulationRNG newRandom() {
+        return RNGFactory.create(config.getRngKind(), newSeed(), journal);
+    }
+
+    /**
+     * @return the seed of the next random stream, for streams the run creates itself
+     */
+    public long newSeed() {
+        return XoshiroRNG.splitMix64(seed + (++streamCounter) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * @return a new message id, ids are handed out from 0 in creation order
+     */
+    public int nextMessageId() {
+        return totalMessages++;
+    }
+
+    public int getTotalMessages() {
+        return totalMessages;
+    }
+
+    public Master getMasterInstance(String group, Point location, int initialEp, String alliance) {
+        Master master = masterInstances.get(group); // Plain lookup first: the capturing lambda below allocates on every call
+        if (master == null) {
+            master = masterInstances.computeIfAbsent(group, k -> {
+                Master created = new Master(this, "Master" + k, k, location, initialEp, alliance, leaderboard);
+                agentStore.register(created); // Once fully constructed
+                leaderboard.register(created);
+                return created;
+            });
+        }
+        return master;
+    }
+
+    /**
+     * @return the arrays holding the position, EP and movement state of every agent of the run
+     */
+    public AgentStore getAgentStore() {
+        return agentStore;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public SimulationEvents getEvents() {
+        return events;
+    }
+
+    public RunJournal getJournal() {
+        return journal;
+    }
+}
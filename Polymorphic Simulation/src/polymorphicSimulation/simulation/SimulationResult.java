@@ -0,0 +1,81 @@
+package polymorphicSimulation.simulation;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a single simulation run, as returned by the headless mode.
+ */
+public class SimulationResult {
+    private final long seed;
+    private final List<String> winners;
+    private final boolean allMessagesCollected;
+    private final int steps;
+    private final int totalMessages;
+    private final int deaths;
+    private final Map<String, Integer> masterMessageCounts;
+
+    /**
+     * @param seed                 master seed the run was started with
+     * @param winners              groups with the highest master message count (empty if no master collected anything)
+     * @param allMessagesCollected true if a master collected every message before the step limit
+     * @param steps                number of simulation steps executed
+     * @param totalMessages        number of messages generated in the run
+     * @param deaths               number of agents that ran out of EP
+     * @param masterMessageCounts  messages held by each group's master, in group order
+     */
+    public SimulationResult(long seed, List<String> winners, boolean allMessagesCollected, int steps, int totalMessages,
+                            int deaths, Map<String, Integer> masterMessageCounts) {
+        this.seed = seed;
+        this.winners = List.copyOf(winners);
+        this.allMessagesCollected = allMessagesCollected;
+        this.steps = steps;
+        this.totalMessages = totalMessages;
+        this.deaths = deaths;
+        this.masterMessageCounts = Collections.unmodifiableMap(new LinkedHashMap<>(masterMessageCounts));
+    }
+
+    /**
+     * @return the single winning group, or null when there is a tie or no master collected any message
+     */
+    public String getWinner() {
+        return winners.size() == 1 ? winners.getFirst() : null;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public List<String> getWinners() {
+        return winners;
+    }
+
+    public boolean isAllMessagesCollected() {
+        return allMessagesCollected;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public int getTotalMessages() {
+        return totalMessages;
+    }
+
+    public int getDeaths() {
+        return deaths;
+    }
+
+    public Map<String, Integer> getMasterMessageCounts() {
+        return masterMessageCounts;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationResult{seed=" + seed + ", winners=" + winners + ", allMessagesCollected=" + allMessagesCollected
+                + ", steps=" + steps + ", totalMessages=" + totalMessages + ", deaths=" + deaths
+                + ", masterMessageCounts=" + masterMessageCounts + "}";
+    }
+}
@@ -0,0 +1,92 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.events.EventLevel;
+import polymorphicSimulation.utils.SimulationRNG;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Agents decide their moves at the same time, then the moves happen one after the other.
+ * <p>
+ * Planning (see Agent.planMove) picks each agent's direction and distance and walks its way on the map as it
+ * was when the step started: nothing is written to the map until every agent has planned, and each agent only
+ * draws from its own random stream and writes its own plan. So plans need no locks and run in parallel on the
+ * pool. The commit phase then carries out the plans on the calling thread, in a random order drawn from the
+ * seeded map stream. An agent meets the agent or hits the barrier it saw at the end of its way; conflicts
+ * resolve by the commit order: of two agents heading for the same tile, the first to commit takes it and the
+ * second stops there and meets it, with the usual interaction.
+ * <p>
+ * A game is the same whatever the number of threads, but differs from a sequential game of the same seed.
+ * The data oriented and partitioned steps of the simulation are not used.
+ */
+public class SimultaneousScheduler implements Scheduler {
+    private static final int PLANS_PER_TASK = 1024;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param pool runs the planning, or null to plan on the calling thread
+     */
+    public SimultaneousScheduler(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void order(List<Agent> agents, int count, SimulationRNG random) {
+        random.shuffle(agents, count); // Commit order
+    }
+
+    @Override
+    public void moveAll(Simulation simulation, List<Agent> agents, int count) {
+        Map map = simulation.getMap();
+        // Listeners and journals are not thread safe, plans are the same on one thread
+        boolean parallel = pool != null && count > PLANS_PER_TASK && !map.getEvents().isEnabled(EventLevel.INFO)
+                && simulation.getContext().getJournal() == null;
+        if (parallel) {
+            pool.invoke(new PlanMoves(map, agents, 0, count));
+        } else {
+            for (int i = 0; i < count; i++) {
+                agents.get(i).planMove(map);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            agents.get(i).commitMove(map);
+        }
+    }
+
+    /**
+     * Plans the moves of agents [from, to), splitting the range down to PLANS_PER_TASK agents.
+     */
+    private static class PlanMoves extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L; // Tasks are never serialized, hence the transient fields
+        private final transient Map map;
+        private final transient List<Agent> agents;
+        private final int from;
+        private final int to;
+
+        PlanMoves(Map map, List<Agent> agents, int from, int to) {
+            this.map = map;
+            this.agents = agents;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PLANS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    agents.get(i).planMove(map);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PlanMoves(map, agents, from, middle), new PlanMoves(map, agents, middle, to));
+        }
+    }
+}
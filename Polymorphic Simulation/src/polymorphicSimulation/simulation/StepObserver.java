@@ -0,0 +1,25 @@
+package polymorphicSimulation.simulation;
+
+/**
+ * Called at the end of every step of a {@link Simulation} it was added to, on the simulation's thread,
+ * e.g. to save checkpoints or record trajectories.
+ */
+public interface StepObserver {
+
+    /**
+     * @param simulation the simulation, {@link Simulation#getStep()} is the step that just ended
+     */
+    void afterStep(Simulation simulation);
+
+    /**
+     * Called by {@link Simulation#addStepObserver(StepObserver)}, before the simulation's next step.
+     */
+    default void attached(Simulation simulation) {
+    }
+
+    /**
+     * Called by {@link Simulation#removeStepObserver(StepObserver)} if the observer was added.
+     */
+    default void detached(Simulation simulation) {
+    }
+}
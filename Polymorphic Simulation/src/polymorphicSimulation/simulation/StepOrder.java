@@ -0,0 +1,37 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.utils.SimulationRNG;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Order in which the live agents move during a step, see {@link SequentialScheduler}.
+ * <p>
+ * The live agents are the first count entries of the simulation's agents list. An order rearranges them
+ * in place, starting from the order of the previous step, and draws only from the random stream it is
+ * given, the seeded map stream, so a run stays reproducible from its seed.
+ */
+@FunctionalInterface
+public interface StepOrder {
+
+    /**
+     * A new random order every step, shuffled in place like the agents list of a simulation without a step order.
+     */
+    StepOrder RANDOM = (agents, count, random) -> random.shuffle(agents, count);
+
+    /**
+     * Agents with the least EP move first, giving the weakest the first chance to reach their SafeZone.
+     * Agents with the same EP move in a random order.
+     */
+    StepOrder LOWEST_EP_FIRST = (agents, count, random) -> {
+        random.shuffle(agents, count);
+        agents.subList(0, count).sort(Comparator.comparingInt(Agent::getEp)); // Stable, so ties keep the shuffled order
+    };
+
+    /**
+     * Rearranges the first count agents, which are all live when the step starts.
+     */
+    void order(List<Agent> agents, int count, SimulationRNG random);
+}
@@ -0,0 +1,103 @@
+package polymorphicSimulation.trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads an event file written by {@link TrajectoryWriter} record by record, through a small reused buffer.
+ * Agents are store slots, {@link TrajectoryReader#getAgentName(int)} gives their names.
+ */
+public class EventReader implements AutoCloseable {
+    private static final InteractionType[] TYPES = InteractionType.values();
+    private static final int BUFFER_RECORDS = 2048;
+
+    private final FileChannel channel;
+    private final long seed;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * TrajectoryWriter.EVENT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private InteractionType type;
+    private int step;
+    private int agent;
+    private int other;
+    private final int[] values = new int[4];
+
+    public EventReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1 + Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // Read the whole header
+        }
+        header.flip();
+        if (header.remaining() < header.capacity() || header.getInt() != TrajectoryWriter.EVENTS_MAGIC
+                || header.get() != TrajectoryWriter.VERSION) {
+            channel.close();
+            throw new IOException("Not an event stream: " + file);
+        }
+        this.seed = header.getLong();
+        buffer.limit(0);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return false at the end of the file
+     */
+    public boolean next() throws IOException {
+        if (buffer.remaining() < TrajectoryWriter.EVENT_SIZE) {
+            buffer.compact();
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // Refill, a file channel only reads nothing at the end of the file
+            }
+            buffer.flip();
+            if (buffer.remaining() < TrajectoryWriter.EVENT_SIZE) {
+                return false; // No more complete record
+            }
+        }
+        type = TYPES[buffer.get()];
+        step = buffer.getInt();
+        agent = buffer.getInt();
+        other = buffer.getInt();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return true;
+    }
+
+    public InteractionType getType() {
+        return type;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public int getAgent() {
+        return agent;
+    }
+
+    /**
+     * @return the other agent, or -1 if the record has none
+     */
+    public int getOther() {
+        return other;
+    }
+
+    /**
+     * @param index 0 to 3, see {@link InteractionType} for what each value is
+     */
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,13 @@
+package polymorphicSimulation.trajectory;
+
+/**
+ * Kinds of records in an event stream, see {@link TrajectoryWriter}. Each record carries the step, the agent
+ * and the other agent as store slots (-1 when there is none) and four values whose meaning depends on the kind.
+ */
+public enum InteractionType {
+    BATTLE,            // outcome (1 agent won, -1 other won, 0 tie), messages moved, messages destroyed, unused
+    UNION,             // agent messages before, other messages before, messages after, unused
+    ALLIANCE_EXCHANGE, // agent messages before, other messages before, agent messages after, other messages after
+    MASTER_TRANSFER,   // agent messages, master messages before, master messages after, unused; other is the master
+    DEATH              // x, y, messages held, unused
+}
@@ -0,0 +1,158 @@
+package polymorphicSimulation.trajectory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a trajectory file written by {@link TrajectoryWriter} one step block at a time: only the current block
+ * is in memory, and since blocks have a fixed size any step can be reached directly with {@link #seek(long)}.
+ * <pre>{@code
+ * try (TrajectoryReader reader = new TrajectoryReader(file)) {
+ *     while (reader.next()) {
+ *         int x = reader.getX(agent);
+ *     }
+ * }
+ * }</pre>
+ */
+public class TrajectoryReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final long seed;
+    private final int width;
+    private final int height;
+    private final String[] groups;
+    private final String[] names;
+    private final long dataStart; // File position of the first block
+    private final ByteBuffer block;
+    private long nextBlock = 0;
+
+    public TrajectoryReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != TrajectoryWriter.TRAJECTORY_MAGIC || header.get() != TrajectoryWriter.VERSION) {
+                throw new IOException("Not a trajectory: " + file);
+            }
+            this.seed = header.getLong();
+            this.width = header.getInt();
+            this.height = header.getInt();
+            int agentCount = header.getInt();
+            this.groups = new String[agentCount];
+            this.names = new String[agentCount];
+            for (int i = 0; i < agentCount; i++) {
+                groups[i] = getString(header);
+                names[i] = getString(header);
+            }
+            this.dataStart = header.position();
+            this.block = ByteBuffer.allocate(Integer.BYTES + 4 * Integer.BYTES * agentCount).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            channel.close();
+            throw new IOException("Truncated trajectory header: " + file, e);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static String getString(ByteBuffer header) {
+        byte[] bytes = new byte[header.getShort() & 0xFFFF];
+        header.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return number of agents in each block, masters included
+     */
+    public int getAgentCount() {
+        return names.length;
+    }
+
+    public String getAgentName(int agent) {
+        return names[agent];
+    }
+
+    public String getAgentGroup(int agent) {
+        return groups[agent];
+    }
+
+    /**
+     * @return number of complete blocks in the file
+     */
+    public long getBlockCount() throws IOException {
+        return (channel.size() - dataStart) / block.capacity();
+    }
+
+    /**
+     * Makes the block at blockIndex the one read by the following {@link #next()}.
+     */
+    public void seek(long blockIndex) {
+        nextBlock = blockIndex;
+    }
+
+    /**
+     * Reads the next block.
+     *
+     * @return false at the end of the file
+     */
+    public boolean next() throws IOException {
+        block.clear();
+        long position = dataStart + nextBlock * block.capacity();
+        while (block.hasRemaining()) {
+            if (channel.read(block, position + block.position()) < 0) {
+                return false; // No more complete block
+            }
+        }
+        nextBlock++;
+        return true;
+    }
+
+    /**
+     * @return the step of the current block
+     */
+    public int getStep() {
+        return block.getInt(0);
+    }
+
+    public int getX(int agent) {
+        return column(0, agent);
+    }
+
+    public int getY(int agent) {
+        return column(1, agent);
+    }
+
+    public int getEp(int agent) {
+        return column(2, agent);
+    }
+
+    public int getMessageCount(int agent) {
+        return column(3, agent);
+    }
+
+    private int column(int column, int agent) {
+        return block.getInt(Integer.BYTES * (1 + column * names.length + agent));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,209 @@
+package polymorphicSimulation.trajectory;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.AgentStore;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.events.SimulationListener;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.simulation.StepObserver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records a run for offline analysis in two little endian binary files.
+ * <p>
+ * The trajectory file starts with {@code int MAGIC, byte VERSION, long seed, int width, int height, int agentCount}
+ * and each agent's group and name (UTF-8, prefixed with a short length), in store slot order. Then comes one
+ * fixed size block per step, the first one for the step recording started at: {@code int step} followed by
+ * one int column each for x, y, EP and message count, agentCount ints per column, masters included.
+ * <p>
+ * The event file starts with {@code int MAGIC, byte VERSION, long seed} and holds one fixed size record per
+ * interaction: {@code byte type, int step, int agent, int other, int[4] values}, see {@link InteractionType}.
+ * <p>
+ * Both go through large direct buffers written with a FileChannel once full. The writer listens at INFO
+ * level, so a partitioned step moves the agents on the calling thread while recording.
+ */
+public class TrajectoryWriter implements SimulationListener, StepObserver, AutoCloseable {
+    static final int TRAJECTORY_MAGIC = 0x4D415354; // "MAST"
+    static final int EVENTS_MAGIC = 0x4D415345;     // "MASE"
+    static final byte VERSION = 1;
+    static final int EVENT_SIZE = 1 + 7 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Simulation simulation;
+    private final AgentStore store;
+    private final FileChannel trajectory;
+    private final FileChannel events;
+    private final ByteBuffer trajectoryBuffer;
+    private final ByteBuffer eventBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final int blockSize;
+    private int step; // Step in progress, events are recorded with it
+    private int pendingMoved = 0; // Messages moved by the battle being published, see onMessagesTaken
+    private int pendingDestroyed = 0;
+
+    /**
+     * Writes both headers. Recording starts once the writer is added with simulation.addStepObserver, from the
+     * simulation's state at that point, and follows every step until closed.
+     */
+    public TrajectoryWriter(Simulation simulation, Path trajectoryFile, Path eventFile) throws IOException {
+        this.simulation = simulation;
+        SimulationContext context = simulation.getContext();
+        this.store = context.getAgentStore();
+        this.blockSize = Integer.BYTES + 4 * Integer.BYTES * store.size();
+        this.trajectoryBuffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, blockSize)).order(ByteOrder.LITTLE_ENDIAN);
+        this.trajectory = FileChannel.open(trajectoryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.events = FileChannel.open(eventFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            trajectory.close();
+            throw e;
+        }
+
+        try {
+            trajectoryBuffer.putInt(TRAJECTORY_MAGIC).put(VERSION).putLong(context.getSeed())
+                    .putInt(simulation.getMap().getWidth()).putInt(simulation.getMap().getHeight()).putInt(store.size());
+            for (int i = 0; i < store.size(); i++) {
+                Agent agent = store.getView(i);
+                putString(agent.getGroup());
+                putString(agent.name);
+            }
+            eventBuffer.putInt(EVENTS_MAGIC).put(VERSION).putLong(context.getSeed());
+        } catch (IOException e) { // Only written once the buffer is full, with very many agents
+            trajectory.close();
+            events.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the first block, the simulation as it is, and starts following its steps and interactions.
+     *
+     * @throws IllegalArgumentException if simulation is not the one this writer was created for
+     */
+    @Override
+    public void attached(Simulation simulation) {
+        if (simulation != this.simulation) {
+            throw new IllegalArgumentException("A trajectory writer only records the simulation it was created for");
+        }
+        step = simulation.getStep();
+        try {
+            writeBlock();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        step++;
+        simulation.getContext().getEvents().subscribe(this);
+    }
+
+    @Override
+    public void detached(Simulation simulation) {
+        simulation.getContext().getEvents().unsubscribe(this);
+    }
+
+    @Override
+    public void afterStep(Simulation simulation) {
+        try {
+            writeBlock();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        step = simulation.getStep() + 1;
+    }
+
+    /**
+     * Stops recording, and writes what is still buffered.
+     */
+    @Override
+    public void close() throws IOException {
+        simulation.removeStepObserver(this);
+        try (trajectory; events) {
+            flush(trajectoryBuffer, trajectory);
+            flush(eventBuffer, events);
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        ensureRemaining(trajectoryBuffer, trajectory, blockSize);
+        trajectoryBuffer.putInt(step);
+        store.writeColumns(trajectoryBuffer);
+    }
+
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(trajectoryBuffer, trajectory, Short.BYTES + bytes.length);
+        trajectoryBuffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private void record(InteractionType type, Agent agent, Agent other, int value0, int value1, int value2, int value3) {
+        try {
+            ensureRemaining(eventBuffer, events, EVENT_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        eventBuffer.put((byte) type.ordinal()).putInt(step).putInt(agent.getIndex()).putInt(other == null ? -1 : other.getIndex())
+                .putInt(value0).putInt(value1).putInt(value2).putInt(value3);
+    }
+
+    private static void ensureRemaining(ByteBuffer buffer, FileChannel channel, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(buffer, channel);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // ---- Events ----
+
+    @Override
+    public void onMessagesTaken(Agent winner, Agent loser, int requested, int taken, int destroyed) {
+        pendingMoved = taken; // Published right before the battle itself
+        pendingDestroyed = destroyed;
+    }
+
+    @Override
+    public void onBattle(Agent agent, Agent other, String agentChoice, String otherChoice, int outcome,
+                         int agentMessagesBefore, int otherMessagesBefore) {
+        record(InteractionType.BATTLE, agent, other, outcome, outcome == 0 ? 0 : pendingMoved,
+                outcome == 0 ? 0 : pendingDestroyed, 0);
+        pendingMoved = 0;
+        pendingDestroyed = 0;
+    }
+
+    @Override
+    public void onUnion(Agent agent, Agent other, int agentMessagesBefore, int otherMessagesBefore) {
+        record(InteractionType.UNION, agent, other, agentMessagesBefore, otherMessagesBefore, agent.messages.size(), 0);
+    }
+
+    @Override
+    public void onAllianceExchange(Agent agent, Agent other, int requested, int agentMessagesBefore, int otherMessagesBefore) {
+        record(InteractionType.ALLIANCE_EXCHANGE, agent, other, agentMessagesBefore, otherMessagesBefore,
+                agent.messages.size(), other.messages.size());
+    }
+
+    @Override
+    public void onMasterTransfer(Agent agent, Master master, int masterMessagesBefore) {
+        record(InteractionType.MASTER_TRANSFER, agent, master, agent.messages.size(), masterMessagesBefore,
+                master.getMessageCount(), 0);
+    }
+
+    @Override
+    public void onDeath(Agent agent) {
+        record(InteractionType.DEATH, agent, null, agent.getX(), agent.getY(), agent.messages.size(), 0);
+    }
+}
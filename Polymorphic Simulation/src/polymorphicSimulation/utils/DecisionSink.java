@@ -0,0 +1,13 @@
+package polymorphicSimulation.utils;
+
+/**
+ * Receives every random decision drawn from a generator wrapped by {@link RecordingRNG}.
+ */
+public interface DecisionSink {
+
+    /**
+     * @param bound the exclusive bound of nextInt, or 0 for nextRandom
+     * @param value the drawn integer, or for nextRandom the draw scaled to [0, 2^31)
+     */
+    void onDecision(int bound, int value);
+}
@@ -1,5 +1,18 @@
 package polymorphicSimulation.utils;
 
 public enum Direction {
-    NORTH, SOUTH, EAST, WEST, NORTHEAST, NORTHWEST, SOUTHEAST, SOUTHWEST
-}
\ No newline at end of file
+    NORTH(0, 1), SOUTH(0, -1), EAST(1, 0), WEST(-1, 0),
+    NORTHEAST(1, 1), NORTHWEST(-1, 1), SOUTHEAST(1, -1), SOUTHWEST(-1, -1);
+
+    public final int dx; // Step along x for one tile in this direction
+    public final int dy; // Step along y for one tile in this direction
+
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    public boolean isDiagonal() {
+        return dx != 0 && dy != 0;
+    }
+}
@@ -0,0 +1,95 @@
+package polymorphicSimulation.utils;
+
+import polymorphicSimulation.agents.Master;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tracks the masters' message counts as they change, so the leader and the winner are known without scanning.
+ * <p>
+ * Masters never lose messages, so a count only grows: the leading count and the masters tied at it
+ * are updated in O(1) each time a master receives new messages, and the winner is fixed the moment
+ * a master reaches the total number of messages.
+ */
+public class Leaderboard {
+    private final List<Master> masters = new ArrayList<>();
+    private final List<Master> leaders = new ArrayList<>(); // Masters tied at leadingCount, in the order they got there
+    private int leadingCount = 0;
+    private int totalMessages = -1; // Unknown until the agents are created
+    private Master winner = null;
+
+    public void register(Master master) {
+        masters.add(master);
+        update(master);
+    }
+
+    /**
+     * Called by a master after its message count increased.
+     */
+    public void update(Master master) {
+        int count = master.getMessageCount();
+        if (count > leadingCount) {
+            leaders.clear();
+            leaders.add(master);
+            leadingCount = count;
+        } else if (count == leadingCount && count > 0 && !leaders.contains(master)) {
+            leaders.add(master);
+        }
+        if (winner == null && count == totalMessages) {
+            winner = master;
+        }
+    }
+
+    /**
+     * Sets the number of messages a master must collect to win.
+     */
+    public void setTotalMessages(int totalMessages) {
+        this.totalMessages = totalMessages;
+        if (winner == null && !leaders.isEmpty() && leadingCount == totalMessages) {
+            winner = leaders.getFirst();
+        }
+    }
+
+    /**
+     * Restores the leaders and winner of a checkpoint, once the masters have their messages back.
+     *
+     * @param leaders masters tied at the leading count, in the order they got there
+     */
+    public void restore(List<Master> leaders, Master winner) {
+        this.leaders.clear();
+        this.leaders.addAll(leaders);
+        this.leadingCount = leaders.isEmpty() ? 0 : leaders.getFirst().getMessageCount();
+        this.winner = winner;
+    }
+
+    /**
+     * @return the master that collected all messages, or null if none did yet
+     */
+    public Master getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return the first master to reach the leading count, or null if no master has any message
+     */
+    public Master getLeader() {
+        return leaders.isEmpty() ? null : leaders.getFirst();
+    }
+
+    public List<Master> getLeaders() {
+        return Collections.unmodifiableList(leaders);
+    }
+
+    public int getLeadingCount() {
+        return leadingCount;
+    }
+
+    /**
+     * @return all registered masters, in registration order
+     */
+    public List<Master> getMasters() {
+        return Collections.unmodifiableList(masters);
+    }
+}
@@ -0,0 +1,256 @@
+package polymorphicSimulation.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A set of message ids backed by a growable bitset.
+ * <p>
+ * Message ids are dense ints handed out in creation order, so bit {@code id} of the words array
+ * tells whether the message is in the set. Union, difference and transfer between sets work a
+ * 64-bit word at a time, and the cardinality is kept up to date so {@link #size()} is O(1).
+ * The "M" + id string form is only built for display, see {@link #toStrings()}.
+ */
+public class MessageSet {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] words = EMPTY;
+    private int size = 0;
+
+    public MessageSet() {
+    }
+
+    public MessageSet(MessageSet other) {
+        this.words = other.words.clone(); // Not copyFrom, which a subclass may override
+        this.size = other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * @return true if the message was not in the set yet
+     */
+    public boolean add(int id) {
+        int word = id >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2)); // Amortized growth for one id at a time
+        }
+        long bit = 1L << id;
+        if ((words[word] & bit) != 0) {
+            return false;
+        }
+        words[word] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return true if the message was in the set
+     */
+    public boolean remove(int id) {
+        int word = id >>> 6;
+        long bit = 1L << id;
+        if (word >= words.length || (words[word] & bit) == 0) {
+            return false;
+        }
+        words[word] &= ~bit;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+        size = 0;
+    }
+
+    public void copyFrom(MessageSet other) {
+        if (words.length < other.words.length) {
+            words = new long[other.words.length];
+        }
+        System.arraycopy(other.words, 0, words, 0, other.words.length);
+        Arrays.fill(words, other.words.length, words.length, 0L);
+        size = other.size;
+    }
+
+    /**
+     * Adds every message of other to this set.
+     *
+     * @return the number of messages that were new to this set
+     */
+    public int addAll(MessageSet other) {
+        ensureWords(other.words.length);
+        int before = size;
+        for (int i = 0; i < other.words.length; i++) {
+            long added = other.words[i] & ~words[i];
+            if (added != 0) {
+                words[i] |= added;
+                size += Long.bitCount(added);
+            }
+        }
+        return size - before;
+    }
+
+    /**
+     * Replaces the content of this set with {@code a \ b}.
+     */
+    public void setDifference(MessageSet a, MessageSet b) {
+        ensureWords(a.words.length);
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = i < a.words.length ? a.words[i] : 0L;
+            if (i < b.words.length) {
+                word &= ~b.words[i];
+            }
+            words[i] = word;
+            count += Long.bitCount(word);
+        }
+        size = count;
+    }
+
+    /**
+     * Moves up to limit messages from source into this set, lowest ids first, skipping those this set already has.
+     *
+     * @return the number of messages moved
+     */
+    public int takeMissingFrom(MessageSet source, int limit) {
+        ensureWords(source.words.length);
+        int moved = 0;
+        for (int i = 0; i < source.words.length && moved < limit; i++) {
+            long missing = source.words[i] & ~words[i];
+            while (missing != 0 && moved < limit) {
+                long bit = Long.lowestOneBit(missing);
+                missing &= ~bit;
+                words[i] |= bit;
+                source.words[i] &= ~bit;
+                moved++;
+            }
+        }
+        size += moved;
+        source.size -= moved;
+        return moved;
+    }
+
+    /**
+     * @param index position in ascending id order, in [0, size)
+     * @return the id of the index-th message of the set
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        for (int i = 0; ; i++) {
+            long word = words[i];
+            int count = Long.bitCount(word);
+            if (index < count) {
+                for (int j = 0; j < index; j++) {
+                    word &= word - 1; // Clear the lowest set bit
+                }
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            index -= count;
+        }
+    }
+
+    /**
+     * @return the smallest id greater than or equal to fromId, or -1 if there is none
+     */
+    public int nextId(int fromId) {
+        int i = fromId >>> 6;
+        if (i >= words.length) {
+            return -1;
+        }
+        long word = words[i] & (-1L << fromId);
+        while (true) {
+            if (word != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == words.length) {
+                return -1;
+            }
+            word = words[i];
+        }
+    }
+
+    public static String toString(int id) {
+        return "M" + id;
+    }
+
+    /**
+     * @return the display form of the messages, in ascending id order
+     */
+    public List<String> toStrings() {
+        List<String> strings = new ArrayList<>(size);
+        for (int id = nextId(0); id >= 0; id = nextId(id + 1)) {
+            strings.add(toString(id));
+        }
+        return strings;
+    }
+
+    /**
+     * @return the number of bytes {@link #writeTo(ByteBuffer)} writes
+     */
+    public int getSerializedSize() {
+        return Integer.BYTES + Long.BYTES * usedWords();
+    }
+
+    /**
+     * Writes the number of words up to the highest message, then those words.
+     */
+    public void writeTo(ByteBuffer out) {
+        int used = usedWords();
+        out.putInt(used);
+        for (int i = 0; i < used; i++) {
+            out.putLong(words[i]);
+        }
+    }
+
+    /**
+     * Replaces the content of this set with a set written by {@link #writeTo(ByteBuffer)}.
+     */
+    public void readFrom(ByteBuffer in) {
+        int used = in.getInt();
+        words = used == 0 ? EMPTY : new long[used];
+        int count = 0;
+        for (int i = 0; i < used; i++) {
+            words[i] = in.getLong();
+            count += Long.bitCount(words[i]);
+        }
+        size = count;
+    }
+
+    private int usedWords() {
+        int used = words.length;
+        while (used > 0 && words[used - 1] == 0) {
+            used--;
+        }
+        return used;
+    }
+
+    /**
+     * Grows to exactly count words: bulk operations size themselves to the other set, so two sets
+     * exchanging messages converge on the same length instead of doubling past each other.
+     */
+    private void ensureWords(int count) {
+        if (words.length < count) {
+            words = Arrays.copyOf(words, count);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toStrings().toString();
+    }
+}
@@ -1,7 +1,11 @@
 package polymorphicSimulation.utils;
 
 
-public class MonteCarloRNG {
+/**
+ * The original generator: a small LCG feeding a Box-Muller transform, mapped back to [0, 1) through the normal CDF.
+ * Kept as an option, {@link XoshiroRNG} is faster and has a full period.
+ */
+public class MonteCarloRNG implements SimulationRNG {
     private long seed;
     private final long multiplier = 1597;
     private final long increment = 51749;
@@ -14,14 +18,15 @@ public class MonteCarloRNG {
      * @param seed      The initial seed for the random number generator
      */
     public MonteCarloRNG(long seed) {
-        this.seed = seed;
+        this.seed = Math.floorMod(seed, modulus); // The LCG state lives in [0, modulus)
     }
 
     /**
-     * Constructs a MonteCarloRNG with a seed based on the current system time (default constructor).
+     * Constructs a MonteCarloRNG with a fresh seed (default constructor).
+     * Unlike the current time, instances created in the same millisecond get different seeds.
      */
     public MonteCarloRNG() {
-        this(System.currentTimeMillis());
+        this(RNGFactory.newSeed());
     }
 
     /**
@@ -48,7 +53,7 @@ public class MonteCarloRNG {
 
         // Formula 7.1.26 from Abramowitz and Stegun
         double t = 1.0 / (1.0 + p * x);
-        double y = 1.0 / (((((a5 * t + a4) * t) + a3) * t + a2) * t + a1) * t * Math.exp(-x * x);
+        double y = 1.0 - (((((a5 * t + a4) * t) + a3) * t + a2) * t + a1) * t * Math.exp(-x * x);
 
         return sign * y;
     }
@@ -64,51 +69,33 @@ public class MonteCarloRNG {
      }
 
      /**
-      * Uses the Box-Muller transform to generate two independent standard normally distributed random numbers.
+      * Uses the Box-Muller transform to generate a standard normally distributed random number.
+      * Only the cosine branch is used, so the sine branch is not computed.
       *
-      *@return an array containing two normally distributed random numbers
+      *@return a normally distributed random number
       */
-      private double[] boxMuller() {
-        double u1 = nextLCG() / (double) modulus;
+      private double boxMuller() {
+        double u1 = (nextLCG() + 1) / (double) modulus; // In (0, 1], so log(u1) is finite
         double u2 = nextLCG() / (double) modulus;
 
         double mag = Math.sqrt(-2.0 * Math.log(u1));
-        double z1 = mag * Math.cos(2 * Math.PI * u2);
-        double z2 = mag * Math.sin(2 * Math.PI * u2);
-
-        return new double[]{z1, z2};
+        return mag * Math.cos(2 * Math.PI * u2);
       }
 
       /**
        * Generates a random number following a standard normal distribution, transformed into the range [0, 1]
        * using the probability integral transform.
        * 
-       * @return a random number in the range [0, 1]
+       * @return a random number in the range [0, 1)
        */
+      @Override
       public double nextRandom() {
         currentIteration++;
-        double[] normalPair = boxMuller();
-
-        // Using reject sampling
-        double x = normalPair[0];
-
-        // Map to [0, 1] using probability integral transform
-        return 0.5 * (1 + erf(x / Math.sqrt(2)));
-      }
+        double x = boxMuller();
 
-      /**
-       * Generates a random integer within a specified range [min, max)
-       * 
-       * @param min     The minimum value of the range (inclusive)
-       * @param max     The maximum value of the range (exclusive)
-       * @return a random number within the specified range.
-       */
-      public int nextInt(int min, int max) {
-        if (min > max) {
-          throw new IllegalArgumentException("max must be strictly positive and greater than min");
-        }
-        max = max - 1;
-        return min + (int) (nextRandom() * (max - min + 1));
+        // Map to [0, 1) using probability integral transform
+        double p = 0.5 * (1 + erf(x / Math.sqrt(2)));
+        return Math.min(p, Math.nextDown(1.0)); // erf rounds to 1 in the far tail
       }
 
       /**
@@ -117,12 +104,26 @@ public class MonteCarloRNG {
        * @param max     The maximum value of the range (exclusive)
        * @return a random number within the specified range.
        */
+      @Override
       public int nextInt(int max) {
         if (max <= 0) {
           throw new IllegalArgumentException("max must be strictly positive.");
         }
-        max = max - 1;
-        return (int) (nextRandom() * (max));
+        return (int) (nextRandom() * max); // Every value up to max - 1 can be drawn
+      }
+
+      /**
+       * @return the LCG state and the iteration count, for checkpoints
+       */
+      @Override
+      public long[] getState() {
+        return new long[]{seed, currentIteration};
+      }
+
+      @Override
+      public void setState(long[] state) {
+        seed = state[0];
+        currentIteration = (int) state[1];
       }
 
       /**
@@ -0,0 +1,43 @@
+package polymorphicSimulation.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the random number generators used by the simulation.
+ * Seeds derived from a run's master seed are handed out by its SimulationContext.
+ */
+public class RNGFactory {
+
+    public enum Kind {
+        XOSHIRO,    // Fast, full period and unbiased (default)
+        MONTE_CARLO // The original LCG + Gaussian CDF generator
+    }
+
+    private static final AtomicLong seedUniquifier = new AtomicLong(0x2545F4914F6CDD1DL);
+
+    private RNGFactory() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static SimulationRNG create(Kind kind, long seed) {
+        return switch (kind) {
+            case XOSHIRO -> new XoshiroRNG(seed);
+            case MONTE_CARLO -> new MonteCarloRNG(seed);
+        };
+    }
+
+    /**
+     * @param sink if not null, receives every number drawn from the generator
+     */
+    public static SimulationRNG create(Kind kind, long seed, DecisionSink sink) {
+        SimulationRNG rng = create(kind, seed);
+        return sink == null ? rng : new RecordingRNG(rng, sink);
+    }
+
+    /**
+     * @return a seed that differs for every call, even for calls made in the same clock tick
+     */
+    public static long newSeed() {
+        return XoshiroRNG.splitMix64(seedUniquifier.addAndGet(0x9E3779B97F4A7C15L) ^ System.nanoTime());
+    }
+}
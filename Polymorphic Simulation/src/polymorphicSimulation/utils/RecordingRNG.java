@@ -0,0 +1,42 @@
+package polymorphicSimulation.utils;
+
+/**
+ * Passes every number drawn from the wrapped generator to a {@link DecisionSink}.
+ */
+public class RecordingRNG implements SimulationRNG {
+    private final SimulationRNG inner;
+    private final DecisionSink sink;
+
+    public RecordingRNG(SimulationRNG inner, DecisionSink sink) {
+        this.inner = inner;
+        this.sink = sink;
+    }
+
+    @Override
+    public double nextRandom() {
+        double value = inner.nextRandom();
+        sink.onDecision(0, (int) (value * 0x1.0p31));
+        return value;
+    }
+
+    @Override
+    public int nextInt(int max) {
+        int value = inner.nextInt(max);
+        sink.onDecision(max, value);
+        return value;
+    }
+
+    @Override
+    public long[] getState() {
+        return inner.getState();
+    }
+
+    @Override
+    public void setState(long[] state) {
+        inner.setState(state);
+    }
+
+    public SimulationRNG getInner() {
+        return inner;
+    }
+}
@@ -0,0 +1,73 @@
+package polymorphicSimulation.utils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Source of random numbers for the simulation.
+ * Implementations must not allocate in {@link #nextInt(int)} and {@link #nextRandom()}, they run on every agent move.
+ */
+public interface SimulationRNG {
+
+    /**
+     * @return a random number in the range [0, 1)
+     */
+    double nextRandom();
+
+    /**
+     * Generates a random integer within a specified range [0, max)
+     *
+     * @param max     The maximum value of the range (exclusive)
+     * @return a random number within the specified range.
+     */
+    int nextInt(int max);
+
+    /**
+     * Generates a random integer within a specified range [min, max)
+     *
+     * @param min     The minimum value of the range (inclusive)
+     * @param max     The maximum value of the range (exclusive)
+     * @return a random number within the specified range.
+     */
+    default int nextInt(int min, int max) {
+        if (min >= max) {
+            throw new IllegalArgumentException("max must be strictly greater than min");
+        }
+        return min + nextInt(max - min);
+    }
+
+    /**
+     * @return the generator's state: a generator given it through {@link #setState(long[])} continues with the same numbers
+     */
+    long[] getState();
+
+    void setState(long[] state);
+
+    /**
+     * Shuffles the list in place (Fisher-Yates), drawing only from this generator.
+     */
+    default void shuffle(List<?> list) {
+        shuffle(list, list.size());
+    }
+
+    /**
+     * Shuffles the first count elements of the list in place, leaving the others where they are.
+     */
+    default void shuffle(List<?> list, int count) {
+        for (int i = count - 1; i > 0; i--) {
+            Collections.swap(list, i, nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Shuffles the array in place, with the same draws and swaps as {@link #shuffle(List)} on a list of that size.
+     */
+    default void shuffle(int[] array) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package polymorphicSimulation.utils;
+
+/**
+ * xoshiro256** generator: 256 bits of state, period 2^256 - 1, a few shifts and multiplies per number.
+ * See: https://prng.di.unimi.it/
+ * <p>
+ * The state is expanded from the 64-bit seed with SplitMix64, so nearby seeds still give unrelated streams.
+ */
+public class XoshiroRNG implements SimulationRNG {
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    public XoshiroRNG(long seed) {
+        long x = seed;
+        s0 = splitMix64(x += 0x9E3779B97F4A7C15L);
+        s1 = splitMix64(x += 0x9E3779B97F4A7C15L);
+        s2 = splitMix64(x += 0x9E3779B97F4A7C15L);
+        s3 = splitMix64(x + 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * SplitMix64 output function for the given counter value.
+     */
+    public static long splitMix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    public double nextRandom() {
+        return (nextLong() >>> 11) * 0x1.0p-53; // 53 random bits, exactly representable
+    }
+
+    /**
+     * Unbiased bounded integer using Lemire's multiply-and-reject method.
+     * See: https://arxiv.org/abs/1805.10941
+     */
+    @Override
+    public int nextInt(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be strictly positive.");
+        }
+        long m = (nextLong() >>> 32) * max;
+        if ((m & 0xFFFFFFFFL) < max) { // Rarely taken: only then can the result be biased
+            long threshold = (0x100000000L - max) % max;
+            while ((m & 0xFFFFFFFFL) < threshold) {
+                m = (nextLong() >>> 32) * max;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    /**
+     * @return the four state words, for checkpoints
+     */
+    @Override
+    public long[] getState() {
+        return new long[]{s0, s1, s2, s3};
+    }
+
+    @Override
+    public void setState(long[] state) {
+        s0 = state[0];
+        s1 = state[1];
+        s2 = state[2];
+        s3 = state[3];
+    }
+}
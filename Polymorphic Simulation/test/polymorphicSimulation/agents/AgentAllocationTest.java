@@ -0,0 +1,59 @@
+package polymorphicSimulation.agents;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import polymorphicSimulation.environment.Map;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimulationConfig;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Agent moves, and the meetings and obstacle hits they lead to, allocate nothing once warmed up.
+ */
+class AgentAllocationTest {
+    private static final int WARM_UP_ROUNDS = 2_000;
+    private static final int WINDOWS = 5;
+    private static final int ROUNDS_PER_WINDOW = 500;
+
+    @Test
+    void moveAllocatesNothing() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // Small and crowded so agents meet, but with enough EP that none dies
+        SimulationConfig config = new SimulationConfig(40, 40, 20, 1_000_000, Integer.MAX_VALUE, RNGFactory.Kind.XOSHIRO);
+        Simulation simulation = new Simulation(new SimulationContext(config, 42));
+        Map map = simulation.getMap();
+        List<Agent> agents = simulation.getAgents();
+        moveAll(agents, map, WARM_UP_ROUNDS);
+
+        // An allocation in the move path shows in every window, the JVM's own one-off work (compilation,
+        // class loading) only in some: the quietest window must be empty
+        long[] allocated = new long[WINDOWS];
+        for (int window = 0; window < WINDOWS; window++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            moveAll(agents, map, ROUNDS_PER_WINDOW);
+            allocated[window] = threads.getCurrentThreadAllocatedBytes() - before;
+        }
+
+        assertEquals(0, Arrays.stream(allocated).min().getAsLong(),
+                "bytes allocated per window of " + ROUNDS_PER_WINDOW * agents.size() + " moves: " + Arrays.toString(allocated));
+    }
+
+    private static void moveAll(List<Agent> agents, Map map, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < agents.size(); i++) {
+                agents.get(i).move(map);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package polymorphicSimulation.environment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimulationConfig;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.utils.RNGFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Agent placement on chunked maps, which only draw free tiles at random.
+ */
+class ChunkedMapTest {
+    private static final int SIZE = 100_000;
+
+    @Test
+    void placesAgentsOnMapsTooBigForIntTileIds() { // width * height does not fit an int past 46341x46341
+        SimulationConfig config = new SimulationConfig(SIZE, SIZE, 500, 100, 5, RNGFactory.Kind.XOSHIRO)
+                .withChunkedMap(true);
+        Simulation simulation = new Simulation(new SimulationContext(config, 42));
+        Map map = simulation.getMap();
+
+        assertEquals(500 * Simulation.GROUPS.length, simulation.getAgents().size());
+        boolean pastIntTileIds = false;
+        for (Agent agent : simulation.getAgents()) {
+            assertTrue(map.isTileWithinBounds(agent.getX(), agent.getY()), agent.getName() + " is off the map");
+            assertSame(agent, map.getAgentAt(agent.getX(), agent.getY()));
+            pastIntTileIds |= (long) agent.getY() * SIZE + agent.getX() > Integer.MAX_VALUE;
+        }
+        assertTrue(pastIntTileIds, "no agent was placed where y * width + x overflows an int");
+
+        simulation.run(); // Moves near the far edges stay on the map
+    }
+
+    @Test
+    @Timeout(10)
+    void givesUpWhenNoTileIsFree() {
+        // The four 3x2 SafeZones cover every tile of a 6x4 map
+        SimulationConfig config = new SimulationConfig(6, 4, 1, 100, 5, RNGFactory.Kind.XOSHIRO)
+                .withChunkedMap(true);
+        assertThrows(IllegalStateException.class, () -> new Simulation(new SimulationContext(config, 42)));
+    }
+}
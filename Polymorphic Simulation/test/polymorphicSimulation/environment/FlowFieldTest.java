@@ -0,0 +1,66 @@
+package polymorphicSimulation.environment;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimulationConfig;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.utils.Direction;
+import polymorphicSimulation.utils.RNGFactory;
+import polymorphicSimulation.utils.SimulationRNG;
+import polymorphicSimulation.utils.XoshiroRNG;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fields repaired after every new obstacle against fields built from scratch on the same map.
+ */
+class FlowFieldTest {
+    private static final Direction[][] DIRECTION_SETS = {
+            {Direction.NORTH, Direction.SOUTH, Direction.EAST, Direction.WEST},
+            {Direction.NORTHEAST, Direction.NORTHWEST, Direction.SOUTHEAST, Direction.SOUTHWEST},
+            Direction.values()
+    };
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6})
+    void repairedFieldsMatchRebuiltOnes(long seed) {
+        SimulationConfig config = new SimulationConfig(30, 30, 4, 100, 300, RNGFactory.Kind.XOSHIRO)
+                .withFlowFieldNavigation(true);
+        Map map = new Simulation(new SimulationContext(config, seed)).getMap();
+        for (String group : Simulation.GROUPS) {
+            for (Direction[] directions : DIRECTION_SETS) {
+                map.getFlowField(group, directions); // Built now, repaired from here on
+            }
+        }
+
+        SimulationRNG random = new XoshiroRNG(seed);
+        for (int round = 0; round < 60; round++) {
+            for (int i = random.nextInt(4); i >= 0; i--) { // Several obstacles between repairs, like deaths in a step
+                int x = random.nextInt(map.getWidth());
+                int y = random.nextInt(map.getHeight());
+                if (!map.isSafeZone(x, y) && !map.isObstacleAt(x, y)) {
+                    map.addObstacle(x, y);
+                }
+            }
+            map.updateFlowFields();
+            assertRebuilt(map);
+        }
+    }
+
+    private static void assertRebuilt(Map map) {
+        for (String group : Simulation.GROUPS) {
+            for (Direction[] directions : DIRECTION_SETS) {
+                FlowField repaired = map.getFlowField(group, directions);
+                FlowField rebuilt = new FlowField(map, map.getGroupId(group), directions);
+                for (int y = 0; y < map.getHeight(); y++) {
+                    for (int x = 0; x < map.getWidth(); x++) {
+                        String tile = group + " " + directions.length + " directions at " + x + "," + y;
+                        assertEquals(rebuilt.getDistance(x, y), repaired.getDistance(x, y), tile);
+                        assertEquals(rebuilt.getDirection(x, y), repaired.getDirection(x, y), tile);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import polymorphicSimulation.utils.RNGFactory;
+
+/**
+ * Actors draw from their agents' own streams in commit order: a seed plays the same game however the actors'
+ * threads are scheduled.
+ */
+class ActorSchedulerTest {
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6})
+    void sameSeedPlaysTheSameGame(long seed) {
+        SimulationConfig config = new SimulationConfig(20, 20, 10, 30, 200, RNGFactory.Kind.XOSHIRO);
+        Simulation first = new Simulation(new SimulationContext(config, seed));
+        Simulation second = new Simulation(new SimulationContext(config, seed));
+        try (ActorScheduler firstActors = new ActorScheduler(); ActorScheduler secondActors = new ActorScheduler()) {
+            first.setScheduler(firstActors);
+            second.setScheduler(secondActors);
+
+            GameState.assertSameGame(first, second);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A simulation restored from a checkpoint plays on exactly like the one it was taken from.
+ */
+class CheckpointTest {
+    private static final int CHECKPOINT_STEP = 10;
+    private static final int COMPARED_STEP = 60;
+
+    static List<Arguments> games() {
+        List<Arguments> games = new ArrayList<>();
+        for (long seed = 1; seed <= 4; seed++) {
+            for (boolean flowField : new boolean[]{false, true}) {
+                games.add(Arguments.of(seed, flowField, false));
+                games.add(Arguments.of(seed, flowField, true));
+            }
+        }
+        return games;
+    }
+
+    @ParameterizedTest
+    @MethodSource("games")
+    void restoredRunMatchesTheOriginal(long seed, boolean flowField, boolean lowestEpFirst) throws IOException {
+        SimulationConfig config = new SimulationConfig(14, 14, 4, 100, 300, RNGFactory.Kind.XOSHIRO)
+                .withFlowFieldNavigation(flowField);
+        Simulation original = new Simulation(new SimulationContext(config, seed));
+        setScheduler(original, lowestEpFirst);
+        original.run(CHECKPOINT_STEP);
+        ByteBuffer checkpoint = Checkpoint.encode(original);
+        original.run(COMPARED_STEP);
+
+        Simulation restored = Checkpoint.decode(checkpoint);
+        setScheduler(restored, lowestEpFirst); // Not part of the checkpoint
+        assertEquals(CHECKPOINT_STEP, restored.getStep());
+        restored.run(COMPARED_STEP);
+
+        assertEquals(GameState.of(original), GameState.of(restored));
+        GameState.assertResult(original.getResult(), restored.getResult());
+        GameState.assertSameGame(original, restored); // And on to the end of the run
+    }
+
+    private static void setScheduler(Simulation simulation, boolean lowestEpFirst) {
+        if (lowestEpFirst) {
+            simulation.setScheduler(Scheduler.lowestEpFirst());
+        }
+    }
+}
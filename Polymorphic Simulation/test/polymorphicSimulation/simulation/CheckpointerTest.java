@@ -0,0 +1,47 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checkpoints written in the background: one due while the previous one is being written is written later,
+ * not dropped, and the file restores the run.
+ */
+class CheckpointerTest {
+    @Test
+    void fileHoldsTheLastCheckpointDue(@TempDir Path directory) throws IOException {
+        // A checkpoint every step, far faster than the disk: most wait for the writer
+        SimulationConfig config = new SimulationConfig(60, 60, 50, 1_000, 101, RNGFactory.Kind.XOSHIRO);
+        Simulation simulation = new Simulation(new SimulationContext(config, 7));
+        Checkpointer checkpointer = new Checkpointer(directory.resolve("run.ckpt"), 1);
+        try (checkpointer) {
+            simulation.addStepObserver(checkpointer);
+            simulation.run();
+        }
+
+        assertEquals(simulation.getStep(), Checkpoint.read(checkpointer.getFile()).getStep());
+        assertEquals(simulation.getStep(), checkpointer.getWritten() + checkpointer.getSuperseded());
+    }
+
+    @Test
+    void fileRestoresTheRun(@TempDir Path directory) throws IOException {
+        SimulationConfig config = new SimulationConfig(14, 14, 4, 100, 300, RNGFactory.Kind.XOSHIRO);
+        Simulation simulation = new Simulation(new SimulationContext(config, 3));
+        Checkpointer checkpointer = new Checkpointer(directory.resolve("run.ckpt"), 5);
+        try (checkpointer) {
+            simulation.addStepObserver(checkpointer);
+            simulation.run(20);
+            simulation.removeStepObserver(checkpointer);
+        }
+
+        Simulation restored = Checkpoint.read(checkpointer.getFile()); // Written at step 20
+        assertEquals(GameState.of(simulation), GameState.of(restored));
+        GameState.assertSameGame(simulation, restored);
+    }
+}
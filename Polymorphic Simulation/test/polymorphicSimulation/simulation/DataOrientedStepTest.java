@@ -0,0 +1,21 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import polymorphicSimulation.utils.RNGFactory;
+
+/**
+ * The movement kernel plays the same game as the agents' own move methods, step by step.
+ */
+class DataOrientedStepTest {
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6, 7, 8})
+    void kernelMatchesObjectStep(long seed) {
+        SimulationConfig config = new SimulationConfig(14, 14, 4, 100, 300, RNGFactory.Kind.XOSHIRO);
+        Simulation objects = new Simulation(new SimulationContext(config, seed));
+        Simulation kernel = new Simulation(new SimulationContext(config, seed));
+        kernel.setDataOrientedStep(true);
+
+        GameState.assertSameGame(objects, kernel);
+    }
+}
@@ -0,0 +1,49 @@
+package polymorphicSimulation.simulation;
+
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.Master;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The state two runs of the same game must agree on: the step and every agent's position, EP and messages,
+ * masters included.
+ */
+record GameState(int step, List<String> agents) {
+    static GameState of(Simulation simulation) {
+        List<String> agents = new ArrayList<>();
+        for (Agent agent : simulation.getAgents()) {
+            agents.add(describe(agent));
+        }
+        for (Master master : simulation.getLeaderboard().getMasters()) {
+            agents.add(describe(master));
+        }
+        return new GameState(simulation.getStep(), agents);
+    }
+
+    private static String describe(Agent agent) {
+        return agent.name + " at " + agent.getX() + "," + agent.getY() + " ep=" + agent.getEp() + " " + agent.messages;
+    }
+
+    /**
+     * Steps both simulations to the end of the run, asserting after every step that they are in the same state.
+     */
+    static void assertSameGame(Simulation expected, Simulation actual) {
+        assertEquals(of(expected), of(actual));
+        int maxSteps = expected.getContext().getConfig().getMaxSteps();
+        boolean finished = false;
+        while (!finished && expected.getStep() < maxSteps) {
+            finished = expected.step();
+            assertEquals(finished, actual.step(), "finished at step " + expected.getStep());
+            assertEquals(of(expected), of(actual));
+        }
+        assertResult(expected.getResult(), actual.getResult());
+    }
+
+    static void assertResult(SimulationResult expected, SimulationResult actual) {
+        assertEquals(expected.toString(), actual.toString()); // Lists every field
+    }
+}
@@ -0,0 +1,23 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParameterSweepTest {
+    @Test
+    void rangeHasNoFloatingPointDrift() {
+        double[] densities = ParameterSweep.range(0.1, 0.3, 0.1);
+
+        assertArrayEquals(new double[]{0.1, 0.2, 0.3}, densities);
+        assertEquals("0.3", ParameterSweep.Parameter.OBSTACLE_DENSITY.format(densities[2]));
+    }
+
+    @Test
+    void rangeIncludesItsEndOnlyIfAStepLandsOnIt() {
+        assertArrayEquals(new double[]{50, 100, 150, 200}, ParameterSweep.range(50, 200, 50));
+        assertArrayEquals(new double[]{50, 100, 150}, ParameterSweep.range(50, 199, 50));
+        assertArrayEquals(new double[0], ParameterSweep.range(2, 1, 1));
+    }
+}
@@ -0,0 +1,28 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The outcome of a partitioned step depends on the order and the stripe height, never on the number of threads.
+ */
+class PartitionedStepTest {
+    private static final int STRIPE_HEIGHT = 16;
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void threadCountDoesNotChangeTheGame(long seed) {
+        SimulationConfig config = new SimulationConfig(100, 100, 300, 40, 150, RNGFactory.Kind.XOSHIRO);
+        Simulation oneThread = new Simulation(new SimulationContext(config, seed));
+        Simulation fourThreads = new Simulation(new SimulationContext(config, seed));
+        try (ForkJoinPool onePool = new ForkJoinPool(1); ForkJoinPool fourPool = new ForkJoinPool(4)) {
+            oneThread.setPartitionedStep(new PartitionedStep(oneThread.getMap(), STRIPE_HEIGHT, onePool));
+            fourThreads.setPartitionedStep(new PartitionedStep(fourThreads.getMap(), STRIPE_HEIGHT, fourPool));
+
+            GameState.assertSameGame(oneThread, fourThreads);
+        }
+    }
+}
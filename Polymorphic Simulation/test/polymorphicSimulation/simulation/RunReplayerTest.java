@@ -0,0 +1,104 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import polymorphicSimulation.events.SimulationEvents;
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A recorded run replays to its end, and a replay that departs from the recording fails at the step it departs.
+ */
+class RunReplayerTest {
+    private static final SimulationConfig CONFIG = new SimulationConfig(14, 8, 4, 100, 100, RNGFactory.Kind.XOSHIRO);
+    private static final long SEED = 9;
+
+    @Test
+    void recordedRunReplaysToTheEnd(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("run.bin");
+        SimulationResult recorded = record(file);
+
+        try (RunReplayer replayer = new RunReplayer(file)) {
+            assertEquals(SEED, replayer.getSeed());
+            assertEquals(CONFIG.getRngKind(), replayer.getKind());
+            SimulationResult replayed = play(replayer.getSeed(), replayer);
+            GameState.assertResult(recorded, replayed);
+            assertTrue(replayer.isFinished(), "recorded steps left over");
+        }
+    }
+
+    @Test
+    void otherSeedDivergesDuringSetup(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("run.bin");
+        record(file);
+
+        try (RunReplayer replayer = new RunReplayer(file)) {
+            ReplayDivergenceException divergence = assertThrows(ReplayDivergenceException.class, () -> play(SEED + 1, replayer));
+            assertEquals(0, divergence.getStep()); // Step 0 is the setup
+        }
+    }
+
+    @Test
+    void changedDecisionDivergesAtItsStep(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("run.bin");
+        SimulationResult recorded = record(file);
+        int changedStep = recorded.getSteps() / 2;
+
+        try (RunReplayer replayer = new RunReplayer(file)) {
+            RunJournal changing = new ChangingJournal(replayer, changedStep);
+            ReplayDivergenceException divergence = assertThrows(ReplayDivergenceException.class, () -> play(SEED, changing));
+            assertEquals(changedStep, divergence.getStep());
+        }
+    }
+
+    private static SimulationResult record(Path file) throws IOException {
+        try (RunRecorder recorder = new RunRecorder(file, SEED, CONFIG.getRngKind())) {
+            return play(SEED, recorder);
+        }
+    }
+
+    private static SimulationResult play(long seed, RunJournal journal) {
+        return new Simulation(new SimulationContext(CONFIG, seed, new SimulationEvents(), journal)).run();
+    }
+
+    /**
+     * Hands the replayer every decision as drawn, except the first one of a step, which it changes.
+     */
+    private static final class ChangingJournal implements RunJournal {
+        private final RunJournal journal;
+        private final int changedStep;
+        private int step = 0; // Step the decisions are drawn for
+        private boolean changed = false;
+
+        ChangingJournal(RunJournal journal, int changedStep) {
+            this.journal = journal;
+            this.changedStep = changedStep;
+        }
+
+        @Override
+        public void onDecision(int bound, int value) {
+            if (step == changedStep && !changed && bound > 1) {
+                changed = true;
+                value = (value + 1) % bound;
+            }
+            journal.onDecision(bound, value);
+        }
+
+        @Override
+        public void endStep(int step, long stateHash) throws IOException {
+            journal.endStep(step, stateHash);
+            this.step = step + 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Plans only draw from their agent's stream and commit in a seeded order: a game is the same on any number of threads.
+ */
+class SimultaneousSchedulerTest {
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void threadCountDoesNotChangeTheGame(long seed) {
+        // Enough agents for several planning tasks
+        SimulationConfig config = new SimulationConfig(100, 100, 400, 40, 100, RNGFactory.Kind.XOSHIRO);
+        Simulation oneThread = new Simulation(new SimulationContext(config, seed));
+        Simulation fourThreads = new Simulation(new SimulationContext(config, seed));
+        try (ForkJoinPool onePool = new ForkJoinPool(1); ForkJoinPool fourPool = new ForkJoinPool(4)) {
+            oneThread.setScheduler(new SimultaneousScheduler(onePool));
+            fourThreads.setScheduler(new SimultaneousScheduler(fourPool));
+
+            GameState.assertSameGame(oneThread, fourThreads);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package polymorphicSimulation.simulation;
+
+import org.junit.jupiter.api.Test;
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.utils.RNGFactory;
+import polymorphicSimulation.utils.XoshiroRNG;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Step orders against the shuffle they start from.
+ */
+class StepOrderTest {
+    @Test
+    void lowestEpFirstKeepsTiesInShuffledOrder() {
+        SimulationConfig config = new SimulationConfig(30, 30, 40, 100, 300, RNGFactory.Kind.XOSHIRO);
+        Simulation simulation = new Simulation(new SimulationContext(config, 7));
+        simulation.run(10); // Spreads the EPs, with many agents still sharing one
+        List<Agent> shuffled = new ArrayList<>(simulation.getAgents());
+        List<Agent> ordered = new ArrayList<>(shuffled);
+        new XoshiroRNG(11).shuffle(shuffled, shuffled.size());
+
+        StepOrder.LOWEST_EP_FIRST.order(ordered, ordered.size(), new XoshiroRNG(11));
+
+        assertEquals(shuffled.size(), ordered.size());
+        int ties = 0;
+        for (int i = 1; i < ordered.size(); i++) {
+            Agent before = ordered.get(i - 1);
+            Agent after = ordered.get(i);
+            assertTrue(before.getEp() <= after.getEp(), before.getName() + " moves before " + after.getName());
+            if (before.getEp() == after.getEp()) {
+                assertTrue(shuffled.indexOf(before) < shuffled.indexOf(after), before.getName() + " and " + after.getName() + " swapped");
+                ties++;
+            }
+        }
+        assertTrue(ties > 0, "no two agents share an EP");
+    }
+}
@@ -0,0 +1,126 @@
+package polymorphicSimulation.trajectory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import polymorphicSimulation.agents.Agent;
+import polymorphicSimulation.agents.AgentStore;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.events.SimulationListener;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimulationConfig;
+import polymorphicSimulation.simulation.SimulationContext;
+import polymorphicSimulation.utils.RNGFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * What the writer records, read back with TrajectoryReader and EventReader.
+ */
+class TrajectoryWriterTest {
+
+    @Test
+    void readersGetBackWhatWasWritten(@TempDir Path directory) throws IOException {
+        SimulationConfig config = new SimulationConfig(14, 14, 4, 100, 100, RNGFactory.Kind.XOSHIRO);
+        Simulation simulation = new Simulation(new SimulationContext(config, 5));
+        AgentStore store = simulation.getContext().getAgentStore();
+        Path trajectoryFile = directory.resolve("run.traj");
+        Path eventFile = directory.resolve("run.events");
+        List<String> blocks = new ArrayList<>();
+        List<String> interactions = new ArrayList<>();
+        simulation.getContext().getEvents().subscribe(new InteractionLog(simulation, interactions));
+
+        try (TrajectoryWriter writer = new TrajectoryWriter(simulation, trajectoryFile, eventFile)) {
+            simulation.addStepObserver(writer);
+            blocks.add(describeBlock(simulation.getStep(), store));
+            boolean finished = false;
+            while (!finished && simulation.getStep() < config.getMaxSteps()) {
+                finished = simulation.step();
+                blocks.add(describeBlock(simulation.getStep(), store));
+            }
+        }
+
+        try (TrajectoryReader reader = new TrajectoryReader(trajectoryFile)) {
+            assertEquals(5, reader.getSeed());
+            assertEquals(14, reader.getWidth());
+            assertEquals(14, reader.getHeight());
+            assertEquals(store.size(), reader.getAgentCount());
+            for (int i = 0; i < store.size(); i++) {
+                assertEquals(store.getView(i).getName(), reader.getAgentName(i));
+                assertEquals(store.getView(i).getGroup(), reader.getAgentGroup(i));
+            }
+            assertEquals(blocks.size(), reader.getBlockCount());
+            List<String> read = new ArrayList<>();
+            while (reader.next()) {
+                StringBuilder block = new StringBuilder().append(reader.getStep());
+                for (int i = 0; i < reader.getAgentCount(); i++) {
+                    block.append(' ').append(reader.getX(i)).append(',').append(reader.getY(i))
+                            .append(" ep=").append(reader.getEp(i)).append(" messages=").append(reader.getMessageCount(i));
+                }
+                read.add(block.toString());
+            }
+            assertEquals(blocks, read);
+        }
+
+        try (EventReader reader = new EventReader(eventFile)) {
+            assertEquals(5, reader.getSeed());
+            List<String> read = new ArrayList<>();
+            while (reader.next()) {
+                read.add(reader.getType() + " " + reader.getStep() + " " + reader.getAgent() + " " + reader.getOther());
+            }
+            assertFalse(interactions.isEmpty(), "nothing happened to record");
+            assertEquals(interactions, read);
+        }
+    }
+
+    private static String describeBlock(int step, AgentStore store) {
+        StringBuilder block = new StringBuilder().append(step);
+        for (int i = 0; i < store.size(); i++) {
+            Agent agent = store.getView(i);
+            block.append(' ').append(agent.getX()).append(',').append(agent.getY())
+                    .append(" ep=").append(agent.getEp()).append(" messages=").append(agent.getMessageCount());
+        }
+        return block.toString();
+    }
+
+    /**
+     * Notes each interaction the writer records, as the event reader describes it.
+     */
+    private record InteractionLog(Simulation simulation, List<String> interactions) implements SimulationListener {
+        private void log(InteractionType type, Agent agent, Agent other) {
+            int step = simulation.getStep() + 1; // The step in progress
+            interactions.add(type + " " + step + " " + agent.getIndex() + " " + (other == null ? -1 : other.getIndex()));
+        }
+
+        @Override
+        public void onBattle(Agent agent, Agent other, String agentChoice, String otherChoice, int outcome,
+                             int agentMessagesBefore, int otherMessagesBefore) {
+            log(InteractionType.BATTLE, agent, other);
+        }
+
+        @Override
+        public void onUnion(Agent agent, Agent other, int agentMessagesBefore, int otherMessagesBefore) {
+            log(InteractionType.UNION, agent, other);
+        }
+
+        @Override
+        public void onAllianceExchange(Agent agent, Agent other, int requested, int agentMessagesBefore, int otherMessagesBefore) {
+            log(InteractionType.ALLIANCE_EXCHANGE, agent, other);
+        }
+
+        @Override
+        public void onMasterTransfer(Agent agent, Master master, int masterMessagesBefore) {
+            log(InteractionType.MASTER_TRANSFER, agent, master);
+        }
+
+        @Override
+        public void onDeath(Agent agent) {
+            log(InteractionType.DEATH, agent, null);
+        }
+    }
+}
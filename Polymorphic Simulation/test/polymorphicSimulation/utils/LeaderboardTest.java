@@ -0,0 +1,69 @@
+package polymorphicSimulation.utils;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import polymorphicSimulation.agents.Master;
+import polymorphicSimulation.simulation.Simulation;
+import polymorphicSimulation.simulation.SimulationConfig;
+import polymorphicSimulation.simulation.SimulationContext;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The counts kept up to date by the masters' transfers against a recount of every master after each step.
+ */
+class LeaderboardTest {
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+    void incrementalCountsMatchARecount(long seed) {
+        SimulationConfig config = new SimulationConfig(14, 8, 4, 100, 100, RNGFactory.Kind.XOSHIRO);
+        SimulationContext context = new SimulationContext(config, seed);
+        Simulation simulation = new Simulation(context);
+        Leaderboard leaderboard = simulation.getLeaderboard();
+
+        boolean finished = false;
+        while (!finished && simulation.getStep() < config.getMaxSteps()) {
+            finished = simulation.step();
+            assertRecounted(leaderboard, context.getTotalMessages());
+        }
+        assertEquals(finished, leaderboard.getWinner() != null);
+    }
+
+    private static void assertRecounted(Leaderboard leaderboard, int totalMessages) {
+        List<Master> masters = leaderboard.getMasters();
+        int leadingCount = 0;
+        for (Master master : masters) {
+            leadingCount = Math.max(leadingCount, master.getMessageCount());
+        }
+        Set<Master> leaders = new HashSet<>();
+        Set<Master> complete = new HashSet<>();
+        for (Master master : masters) {
+            if (leadingCount > 0 && master.getMessageCount() == leadingCount) {
+                leaders.add(master);
+            }
+            if (master.getMessageCount() == totalMessages) {
+                complete.add(master);
+            }
+        }
+
+        assertEquals(leadingCount, leaderboard.getLeadingCount());
+        assertEquals(leaders, new HashSet<>(leaderboard.getLeaders()));
+        assertEquals(leaders.size(), leaderboard.getLeaders().size(), "a leader is listed twice");
+        if (leaders.isEmpty()) {
+            assertNull(leaderboard.getLeader());
+        } else {
+            assertTrue(leaders.contains(leaderboard.getLeader()));
+        }
+        if (complete.isEmpty()) {
+            assertNull(leaderboard.getWinner());
+        } else {
+            assertTrue(complete.contains(leaderboard.getWinner()), "the winner has not collected every message");
+        }
+    }
+}
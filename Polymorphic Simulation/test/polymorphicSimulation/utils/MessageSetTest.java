@@ -0,0 +1,151 @@
+package polymorphicSimulation.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The bulk operations against java.util.BitSet, between sets whose word arrays have different lengths.
+ */
+class MessageSetTest {
+    private static final int[] MAX_IDS = {0, 1, 63, 64, 65, 200, 1_000};
+
+    @Test
+    void addAll() {
+        SimulationRNG random = new XoshiroRNG(1);
+        for (int aMax : MAX_IDS) {
+            for (int bMax : MAX_IDS) {
+                BitSet a = randomBits(random, aMax);
+                BitSet b = randomBits(random, bMax);
+                MessageSet set = toSet(a);
+
+                int added = set.addAll(toSet(b));
+
+                BitSet expected = (BitSet) a.clone();
+                expected.or(b);
+                assertEquals(expected.cardinality() - a.cardinality(), added);
+                assertSame(expected, set);
+            }
+        }
+    }
+
+    @Test
+    void setDifference() {
+        SimulationRNG random = new XoshiroRNG(2);
+        for (int aMax : MAX_IDS) {
+            for (int bMax : MAX_IDS) {
+                for (int targetMax : MAX_IDS) {
+                    BitSet a = randomBits(random, aMax);
+                    BitSet b = randomBits(random, bMax);
+                    MessageSet target = toSet(randomBits(random, targetMax)); // Its old content must not survive
+
+                    target.setDifference(toSet(a), toSet(b));
+
+                    BitSet expected = (BitSet) a.clone();
+                    expected.andNot(b);
+                    assertSame(expected, target);
+                }
+            }
+        }
+    }
+
+    @Test
+    void takeMissingFrom() {
+        SimulationRNG random = new XoshiroRNG(3);
+        for (int aMax : MAX_IDS) {
+            for (int sourceMax : MAX_IDS) {
+                for (int limit : new int[]{0, 1, 5, Integer.MAX_VALUE}) {
+                    BitSet a = randomBits(random, aMax);
+                    BitSet source = randomBits(random, sourceMax);
+                    MessageSet set = toSet(a);
+                    MessageSet sourceSet = toSet(source);
+
+                    int moved = set.takeMissingFrom(sourceSet, limit);
+
+                    // The lowest ids of source that a lacks move, the ones a already has stay in source
+                    BitSet expected = (BitSet) a.clone();
+                    BitSet expectedSource = (BitSet) source.clone();
+                    int expectedMoved = 0;
+                    for (int id = source.nextSetBit(0); id >= 0 && expectedMoved < limit; id = source.nextSetBit(id + 1)) {
+                        if (!a.get(id)) {
+                            expected.set(id);
+                            expectedSource.clear(id);
+                            expectedMoved++;
+                        }
+                    }
+                    assertEquals(expectedMoved, moved);
+                    assertSame(expected, set);
+                    assertSame(expectedSource, sourceSet);
+                }
+            }
+        }
+    }
+
+    @Test
+    void copyFrom() {
+        SimulationRNG random = new XoshiroRNG(4);
+        for (int targetMax : MAX_IDS) {
+            for (int otherMax : MAX_IDS) {
+                BitSet other = randomBits(random, otherMax);
+                MessageSet target = toSet(randomBits(random, targetMax));
+                MessageSet otherSet = toSet(other);
+
+                target.copyFrom(otherSet);
+                assertSame(other, target);
+
+                target.add(otherMax + 1); // The copy does not share words with other
+                assertSame(other, otherSet);
+            }
+        }
+    }
+
+    @Test
+    void battlingSetsStopGrowing() {
+        // With doubling growth each transfer doubled the receiver past the other set, until the heap ran out
+        MessageSet a = toSet(randomBits(new XoshiroRNG(5), 8 * 64));
+        MessageSet b = toSet(randomBits(new XoshiroRNG(6), 9 * 64));
+        int total = a.size() + b.size();
+        for (int round = 0; round < 1_000; round++) {
+            a.takeMissingFrom(b, 1);
+            b.takeMissingFrom(a, 1);
+        }
+        assertEquals(total, a.size() + b.size());
+    }
+
+    private static BitSet randomBits(SimulationRNG random, int maxId) {
+        BitSet bits = new BitSet();
+        for (int id = 0; id <= maxId; id++) {
+            if (random.nextInt(3) == 0) {
+                bits.set(id);
+            }
+        }
+        bits.set(maxId); // Fixes the length of the word array
+        return bits;
+    }
+
+    /**
+     * @return a set whose word array is exactly as long as the highest id needs
+     */
+    private static MessageSet toSet(BitSet bits) {
+        long[] words = bits.toLongArray();
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + Long.BYTES * words.length).putInt(words.length);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        MessageSet set = new MessageSet();
+        set.readFrom(buffer.flip());
+        return set;
+    }
+
+    private static void assertSame(BitSet expected, MessageSet actual) {
+        assertEquals(expected.cardinality(), actual.size());
+        BitSet bits = new BitSet();
+        for (int id = actual.nextId(0); id >= 0; id = actual.nextId(id + 1)) {
+            bits.set(id);
+        }
+        assertEquals(expected, bits);
+    }
+}
@@ -0,0 +1,71 @@
+package polymorphicSimulation.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The generator against the reference outputs of xoshiro256** and SplitMix64, and the range of its bounded ints.
+ */
+class XoshiroRNGTest {
+
+    @Test
+    void outputMatchesTheReferenceImplementation() { // xoshiro256starstar.c from state {1, 2, 3, 4}
+        XoshiroRNG random = new XoshiroRNG(0);
+        random.setState(new long[]{1, 2, 3, 4});
+
+        assertEquals(11520L, random.nextLong());
+        assertEquals(0L, random.nextLong());
+        assertEquals(1509978240L, random.nextLong());
+        assertEquals(1215971899390074240L, random.nextLong());
+    }
+
+    @Test
+    void seedIsExpandedWithSplitMix64() { // The first outputs of splitmix64.c seeded with 1234567
+        long[] expected = {
+                Long.parseUnsignedLong("6457827717110365317"),
+                Long.parseUnsignedLong("3203168211198807973"),
+                Long.parseUnsignedLong("9817491932198370423"),
+                Long.parseUnsignedLong("4593380528125082431")
+        };
+
+        assertArrayEquals(expected, new XoshiroRNG(1234567).getState());
+    }
+
+    @Test
+    void sameSeedSameStream() {
+        XoshiroRNG first = new XoshiroRNG(42);
+        XoshiroRNG second = new XoshiroRNG(42);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {Integer.MAX_VALUE, Integer.MAX_VALUE - 1, 3 << 29, (1 << 30) + 1, 1_000_000_007})
+    void boundedIntsStayInRangeNearIntMax(int bound) { // Bounds where most of the 32 bit range is rejected or kept
+        XoshiroRNG random = new XoshiroRNG(bound);
+        int upperHalf = 0;
+        int draws = 100_000;
+        for (int i = 0; i < draws; i++) {
+            int value = random.nextInt(bound);
+            assertTrue(value >= 0 && value < bound, value + " is out of [0, " + bound + ")");
+            if (value >= bound / 2) {
+                upperHalf++;
+            }
+        }
+        assertTrue(Math.abs(upperHalf - draws / 2) < draws / 50, upperHalf + " of " + draws + " draws in the upper half");
+    }
+
+    @Test
+    void boundOfOneAlwaysGivesZero() {
+        XoshiroRNG random = new XoshiroRNG(7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, random.nextInt(1));
+        }
+    }
+}